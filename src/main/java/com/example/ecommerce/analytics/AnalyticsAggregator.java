@@ -0,0 +1,146 @@
+package com.example.ecommerce.analytics;
+
+import com.example.ecommerce.enums.Gender;
+import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.enums.PaymentMethod;
+import com.example.ecommerce.enums.PaymentStatus;
+import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.repository.PaymentRepository;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the system-wide analytics counters with GROUP BY queries, so the
+ * database returns a handful of rows instead of every user, product, order and payment.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalyticsAggregator {
+
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final PaymentRepository paymentRepository;
+
+    public UserCounts countUsers() {
+        Map<Gender, Long> byGender = new EnumMap<>(Gender.class);
+        long active = 0;
+        long inactive = 0;
+
+        for (Object[] row : userRepository.countGroupByGenderAndActive()) {
+            long count = toLong(row[2]);
+            if (row[0] != null) {
+                byGender.merge((Gender) row[0], count, Long::sum);
+            }
+            if (Boolean.TRUE.equals(row[1])) {
+                active += count;
+            } else {
+                inactive += count;
+            }
+        }
+        return new UserCounts(active, inactive, byGender);
+    }
+
+    // Age is measured from account creation, matching Period.between(createdAt, today).getYears()
+    public AgeBuckets countUsersByAccountAge(LocalDate today) {
+        List<Object[]> rows = userRepository.countByAccountAgeBuckets(
+                ageBoundary(today, 10),
+                ageBoundary(today, 20),
+                ageBoundary(today, 30));
+
+        Object[] row = rows.isEmpty() ? new Object[3] : rows.get(0);
+        return new AgeBuckets(toLong(row[0]), toLong(row[1]), toLong(row[2]));
+    }
+
+    public ProductCounts countProducts() {
+        long active = 0;
+        long inactive = 0;
+
+        for (Object[] row : productRepository.countGroupByActive()) {
+            if (Boolean.TRUE.equals(row[0])) {
+                active += toLong(row[1]);
+            } else {
+                inactive += toLong(row[1]);
+            }
+        }
+        return new ProductCounts(active, inactive);
+    }
+
+    public Map<OrderStatus, Long> countOrdersByStatus() {
+        Map<OrderStatus, Long> byStatus = new EnumMap<>(OrderStatus.class);
+        for (Object[] row : orderRepository.countGroupByStatus()) {
+            if (row[0] != null) {
+                byStatus.merge((OrderStatus) row[0], toLong(row[1]), Long::sum);
+            }
+        }
+        return byStatus;
+    }
+
+    public PaymentCounts countPayments() {
+        Map<PaymentMethod, Long> byMethod = new EnumMap<>(PaymentMethod.class);
+        Map<PaymentStatus, Long> byStatus = new EnumMap<>(PaymentStatus.class);
+        long total = 0;
+
+        for (Object[] row : paymentRepository.countGroupByMethodAndStatus()) {
+            long count = toLong(row[2]);
+            if (row[0] != null) {
+                byMethod.merge((PaymentMethod) row[0], count, Long::sum);
+            }
+            if (row[1] != null) {
+                byStatus.merge((PaymentStatus) row[1], count, Long::sum);
+            }
+            total += count;
+        }
+        return new PaymentCounts(total, byMethod, byStatus);
+    }
+
+    public BigDecimal sumCompletedRevenue() {
+        return paymentRepository.sumAmountByStatus(PaymentStatus.COMPLETED);
+    }
+
+    private static LocalDateTime ageBoundary(LocalDate today, int years) {
+        return today.minusYears(years).plusDays(1).atStartOfDay();
+    }
+
+    private static long toLong(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+
+    public record UserCounts(long active, long inactive, Map<Gender, Long> byGender) {
+        public long total() {
+            return active + inactive;
+        }
+
+        public long withGender(Gender gender) {
+            return byGender.getOrDefault(gender, 0L);
+        }
+    }
+
+    public record AgeBuckets(long tenToTwenty, long twentyToThirty, long aboveThirty) {
+    }
+
+    public record ProductCounts(long active, long inactive) {
+        public long total() {
+            return active + inactive;
+        }
+    }
+
+    public record PaymentCounts(long total, Map<PaymentMethod, Long> byMethod, Map<PaymentStatus, Long> byStatus) {
+        public long withMethod(PaymentMethod method) {
+            return byMethod.getOrDefault(method, 0L);
+        }
+
+        public long withStatus(PaymentStatus status) {
+            return byStatus.getOrDefault(status, 0L);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.example.ecommerce.analytics;
+
+import com.example.ecommerce.entity.Analytics;
+import com.example.ecommerce.enums.Gender;
+import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.enums.PaymentMethod;
+import com.example.ecommerce.enums.PaymentStatus;
+import com.example.ecommerce.repository.CartRepository;
+import com.example.ecommerce.repository.CategoryRepository;
+import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.repository.PaymentRepository;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Rebuilds {@link Analytics} rows for a date range in a single pass. Each source table is
+ * streamed once through a JDBC cursor, rows are bucketed by creation day and turned into
+ * running totals, and the resulting snapshots are upserted in JDBC batches.
+ * <p>
+ * A row for day D describes every entity created up to the end of D. Status, gender and
+ * active flags are taken as they are now, since no history of those fields is kept.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsBackfillJob {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO analytics (analytics_date,
+                total_users, active_users, inactive_users, male_users, female_users, other_gender_users,
+                users_from_ten_to_twenty, users_from_twenty_to_thirty, users_above_thirty,
+                total_products, active_products, inactive_products, total_categories, total_carts,
+                total_orders, pending_orders, confirmed_orders, shipped_orders, delivered_orders, cancelled_orders,
+                total_payments, total_revenue, total_revenue_last_month,
+                payment_via_khalti, payment_via_cash_on_delivery, payment_via_credit_card, payment_via_debit_card,
+                payment_via_esewa, payment_via_bank_transfer,
+                pending_payment, completed_payment, failed_payment, refunded_payment, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String UPSERT_SQL = INSERT_SQL + """
+            ON CONFLICT (analytics_date) DO UPDATE SET
+                total_users = EXCLUDED.total_users,
+                active_users = EXCLUDED.active_users,
+                inactive_users = EXCLUDED.inactive_users,
+                male_users = EXCLUDED.male_users,
+                female_users = EXCLUDED.female_users,
+                other_gender_users = EXCLUDED.other_gender_users,
+                users_from_ten_to_twenty = EXCLUDED.users_from_ten_to_twenty,
+                users_from_twenty_to_thirty = EXCLUDED.users_from_twenty_to_thirty,
+                users_above_thirty = EXCLUDED.users_above_thirty,
+                total_products = EXCLUDED.total_products,
+                active_products = EXCLUDED.active_products,
+                inactive_products = EXCLUDED.inactive_products,
+                total_categories = EXCLUDED.total_categories,
+                total_carts = EXCLUDED.total_carts,
+                total_orders = EXCLUDED.total_orders,
+                pending_orders = EXCLUDED.pending_orders,
+                confirmed_orders = EXCLUDED.confirmed_orders,
+                shipped_orders = EXCLUDED.shipped_orders,
+                delivered_orders = EXCLUDED.delivered_orders,
+                cancelled_orders = EXCLUDED.cancelled_orders,
+                total_payments = EXCLUDED.total_payments,
+                total_revenue = EXCLUDED.total_revenue,
+                total_revenue_last_month = EXCLUDED.total_revenue_last_month,
+                payment_via_khalti = EXCLUDED.payment_via_khalti,
+                payment_via_cash_on_delivery = EXCLUDED.payment_via_cash_on_delivery,
+                payment_via_credit_card = EXCLUDED.payment_via_credit_card,
+                payment_via_debit_card = EXCLUDED.payment_via_debit_card,
+                payment_via_esewa = EXCLUDED.payment_via_esewa,
+                payment_via_bank_transfer = EXCLUDED.payment_via_bank_transfer,
+                pending_payment = EXCLUDED.pending_payment,
+                completed_payment = EXCLUDED.completed_payment,
+                failed_payment = EXCLUDED.failed_payment,
+                refunded_payment = EXCLUDED.refunded_payment
+            """;
+
+    // Days that got a snapshot in the meantime keep it
+    private static final String INSERT_MISSING_SQL = INSERT_SQL + "ON CONFLICT (analytics_date) DO NOTHING";
+
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final CartRepository cartRepository;
+    private final OrderRepository orderRepository;
+    private final PaymentRepository paymentRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${analytics.backfill.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Rebuilds and upserts the analytics rows for every day from {@code startDate} to
+     * {@code endDate} inclusive and returns the number of rows written.
+     */
+    @Transactional
+    public int backfill(LocalDate startDate, LocalDate endDate) {
+        return backfill(startDate, endDate, date -> true, UPSERT_SQL);
+    }
+
+    /**
+     * Writes rows only for the given dates, in one pass over the span they cover. Existing rows,
+     * such as real midnight snapshots between the dates, are never touched.
+     */
+    @Transactional
+    public int backfillMissing(Collection<LocalDate> dates) {
+        if (dates.isEmpty()) {
+            return 0;
+        }
+        Set<LocalDate> missing = new HashSet<>(dates);
+        return backfill(Collections.min(missing), Collections.max(missing), missing::contains, INSERT_MISSING_SQL);
+    }
+
+    private int backfill(LocalDate startDate, LocalDate endDate, Predicate<LocalDate> written, String sql) {
+        long started = System.nanoTime();
+        DayRange days = new DayRange(startDate, endDate);
+        LocalDateTime end = endDate.plusDays(1).atStartOfDay();
+
+        // Users: running totals per gender and active flag, plus a per-day histogram for account age
+        Map<Gender, DailyCounts> usersByGender = counters(Gender.class, days);
+        DailyCounts activeUsers = new DailyCounts(days);
+        DailyCounts inactiveUsers = new DailyCounts(days);
+        NavigableMap<LocalDate, Long> usersCreatedPerDay = new TreeMap<>();
+        try (Stream<Object[]> rows = userRepository.streamGenderActiveCreatedBefore(end)) {
+            rows.forEach(row -> {
+                LocalDate created = toDate(row[0]);
+                if (row[1] != null) {
+                    usersByGender.get((Gender) row[1]).add(created);
+                }
+                (Boolean.TRUE.equals(row[2]) ? activeUsers : inactiveUsers).add(created);
+                usersCreatedPerDay.merge(created, 1L, Long::sum);
+            });
+        }
+        NavigableMap<LocalDate, Long> usersCreatedUpTo = runningTotals(usersCreatedPerDay);
+
+        DailyCounts activeProducts = new DailyCounts(days);
+        DailyCounts inactiveProducts = new DailyCounts(days);
+        try (Stream<Object[]> rows = productRepository.streamActiveCreatedBefore(end)) {
+            rows.forEach(row -> (Boolean.TRUE.equals(row[1]) ? activeProducts : inactiveProducts).add(toDate(row[0])));
+        }
+
+        DailyCounts categories = new DailyCounts(days);
+        try (Stream<LocalDateTime> rows = categoryRepository.streamCreatedBefore(end)) {
+            rows.forEach(createdAt -> categories.add(createdAt.toLocalDate()));
+        }
+
+        DailyCounts carts = new DailyCounts(days);
+        try (Stream<LocalDateTime> rows = cartRepository.streamCreatedBefore(end)) {
+            rows.forEach(createdAt -> carts.add(createdAt.toLocalDate()));
+        }
+
+        Map<OrderStatus, DailyCounts> ordersByStatus = counters(OrderStatus.class, days);
+        DailyCounts orders = new DailyCounts(days);
+        try (Stream<Object[]> rows = orderRepository.streamStatusCreatedBefore(end)) {
+            rows.forEach(row -> {
+                LocalDate created = toDate(row[0]);
+                orders.add(created);
+                if (row[1] != null) {
+                    ordersByStatus.get((OrderStatus) row[1]).add(created);
+                }
+            });
+        }
+
+        // Completed revenue per day is kept from the first day of the month before startDate,
+        // which is the earliest day any row's "last month" revenue can reach back to
+        Map<PaymentMethod, DailyCounts> paymentsByMethod = counters(PaymentMethod.class, days);
+        Map<PaymentStatus, DailyCounts> paymentsByStatus = counters(PaymentStatus.class, days);
+        DailyCounts payments = new DailyCounts(days);
+        DayRange revenueDays = new DayRange(startDate.minusMonths(1).withDayOfMonth(1), endDate);
+        long[] revenueMinorPerDay = new long[revenueDays.length()];
+        try (Stream<Object[]> rows = paymentRepository.streamMethodStatusAmountCreatedBefore(end)) {
+            rows.forEach(row -> {
+                LocalDate created = toDate(row[0]);
+                payments.add(created);
+                if (row[1] != null) {
+                    paymentsByMethod.get((PaymentMethod) row[1]).add(created);
+                }
+                if (row[2] != null) {
+                    paymentsByStatus.get((PaymentStatus) row[2]).add(created);
+                }
+                if (row[2] == PaymentStatus.COMPLETED && !created.isBefore(revenueDays.start())) {
+                    revenueMinorPerDay[revenueDays.indexOf(created)] += toMinorUnits((BigDecimal) row[3]);
+                }
+            });
+        }
+
+        List<Analytics> snapshots = new ArrayList<>(days.length());
+        for (int day = 0; day < days.length(); day++) {
+            LocalDate date = days.dateAt(day);
+            if (!written.test(date)) {
+                continue;
+            }
+            int active = activeUsers.upTo(day);
+            int inactive = inactiveUsers.upTo(day);
+            int activeProductCount = activeProducts.upTo(day);
+            int inactiveProductCount = inactiveProducts.upTo(day);
+
+            // Same account-age boundaries as AnalyticsAggregator#countUsersByAccountAge
+            long tenYears = createdBefore(usersCreatedUpTo, date.minusYears(10).plusDays(1));
+            long twentyYears = createdBefore(usersCreatedUpTo, date.minusYears(20).plusDays(1));
+            long thirtyYears = createdBefore(usersCreatedUpTo, date.minusYears(30).plusDays(1));
+
+            LocalDate firstDayOfLastMonth = date.minusMonths(1).withDayOfMonth(1);
+            long lastMonthRevenue = 0;
+            for (LocalDate d = firstDayOfLastMonth; d.isBefore(firstDayOfLastMonth.plusMonths(1)); d = d.plusDays(1)) {
+                lastMonthRevenue += revenueMinorPerDay[revenueDays.indexOf(d)];
+            }
+
+            snapshots.add(Analytics.builder()
+                    .analyticsDate(date)
+                    .totalUsers(active + inactive)
+                    .activeUsers(active)
+                    .inactiveUsers(inactive)
+                    .maleUsers(usersByGender.get(Gender.MALE).upTo(day))
+                    .femaleUsers(usersByGender.get(Gender.FEMALE).upTo(day))
+                    .otherGenderUsers(usersByGender.get(Gender.OTHER).upTo(day))
+                    .usersFromTenToTwenty((int) (tenYears - twentyYears))
+                    .usersFromTwentyToThirty((int) (twentyYears - thirtyYears))
+                    .usersAboveThirty((int) thirtyYears)
+                    .totalProducts(activeProductCount + inactiveProductCount)
+                    .activeProducts(activeProductCount)
+                    .inactiveProducts(inactiveProductCount)
+                    .totalCategories(categories.upTo(day))
+                    .totalCarts(carts.upTo(day))
+                    .totalOrders(orders.upTo(day))
+                    .pendingOrders(ordersByStatus.get(OrderStatus.PENDING).upTo(day))
+                    .confirmedOrders(ordersByStatus.get(OrderStatus.CONFIRMED).upTo(day))
+                    .shippedOrders(ordersByStatus.get(OrderStatus.SHIPPED).upTo(day))
+                    .deliveredOrders(ordersByStatus.get(OrderStatus.DELIVERED).upTo(day))
+                    .cancelledOrders(ordersByStatus.get(OrderStatus.CANCELLED).upTo(day))
+                    .totalPayments(payments.upTo(day))
+                    .totalRevenue(BigDecimal.valueOf(revenueMinorPerDay[revenueDays.indexOf(date)], 2))
+                    .totalRevenueLastMonth(BigDecimal.valueOf(lastMonthRevenue, 2))
+                    .paymentViaKhalti(paymentsByMethod.get(PaymentMethod.KHALTI).upTo(day))
+                    .paymentViaCashOnDelivery(paymentsByMethod.get(PaymentMethod.CASH_ON_DELIVERY).upTo(day))
+                    .paymentViaCreditCard(0)
+                    .paymentViaDebitCard(0)
+                    .paymentViaEsewa(0)
+                    .paymentViaBankTransfer(0)
+                    .pendingPayment(paymentsByStatus.get(PaymentStatus.PENDING).upTo(day))
+                    .completedPayment(paymentsByStatus.get(PaymentStatus.COMPLETED).upTo(day))
+                    .failedPayment(paymentsByStatus.get(PaymentStatus.FAILED).upTo(day))
+                    .refundedPayment(paymentsByStatus.get(PaymentStatus.REFUNDED).upTo(day))
+                    .build());
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(sql, snapshots, batchSize, (ps, analytics) -> bind(ps, analytics, now));
+
+        log.info("Backfilled {} analytics rows from {} to {} in {} ms", snapshots.size(), startDate, endDate,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return snapshots.size();
+    }
+
+    private static void bind(PreparedStatement ps, Analytics a, Timestamp createdAt) throws SQLException {
+        int i = 0;
+        ps.setDate(++i, Date.valueOf(a.getAnalyticsDate()));
+        ps.setInt(++i, a.getTotalUsers());
+        ps.setInt(++i, a.getActiveUsers());
+        ps.setInt(++i, a.getInactiveUsers());
+        ps.setInt(++i, a.getMaleUsers());
+        ps.setInt(++i, a.getFemaleUsers());
+        ps.setInt(++i, a.getOtherGenderUsers());
+        ps.setInt(++i, a.getUsersFromTenToTwenty());
+        ps.setInt(++i, a.getUsersFromTwentyToThirty());
+        ps.setInt(++i, a.getUsersAboveThirty());
+        ps.setInt(++i, a.getTotalProducts());
+        ps.setInt(++i, a.getActiveProducts());
+        ps.setInt(++i, a.getInactiveProducts());
+        ps.setInt(++i, a.getTotalCategories());
+        ps.setInt(++i, a.getTotalCarts());
+        ps.setInt(++i, a.getTotalOrders());
+        ps.setInt(++i, a.getPendingOrders());
+        ps.setInt(++i, a.getConfirmedOrders());
+        ps.setInt(++i, a.getShippedOrders());
+        ps.setInt(++i, a.getDeliveredOrders());
+        ps.setInt(++i, a.getCancelledOrders());
+        ps.setInt(++i, a.getTotalPayments());
+        ps.setBigDecimal(++i, a.getTotalRevenue());
+        ps.setBigDecimal(++i, a.getTotalRevenueLastMonth());
+        ps.setInt(++i, a.getPaymentViaKhalti());
+        ps.setInt(++i, a.getPaymentViaCashOnDelivery());
+        ps.setInt(++i, a.getPaymentViaCreditCard());
+        ps.setInt(++i, a.getPaymentViaDebitCard());
+        ps.setInt(++i, a.getPaymentViaEsewa());
+        ps.setInt(++i, a.getPaymentViaBankTransfer());
+        ps.setInt(++i, a.getPendingPayment());
+        ps.setInt(++i, a.getCompletedPayment());
+        ps.setInt(++i, a.getFailedPayment());
+        ps.setInt(++i, a.getRefundedPayment());
+        ps.setTimestamp(++i, createdAt);
+    }
+
+    private static NavigableMap<LocalDate, Long> runningTotals(NavigableMap<LocalDate, Long> perDay) {
+        NavigableMap<LocalDate, Long> totals = new TreeMap<>();
+        long total = 0;
+        for (Map.Entry<LocalDate, Long> entry : perDay.entrySet()) {
+            total += entry.getValue();
+            totals.put(entry.getKey(), total);
+        }
+        return totals;
+    }
+
+    private static long createdBefore(NavigableMap<LocalDate, Long> createdUpTo, LocalDate date) {
+        Map.Entry<LocalDate, Long> entry = createdUpTo.lowerEntry(date);
+        return entry == null ? 0L : entry.getValue();
+    }
+
+    private static <E extends Enum<E>> Map<E, DailyCounts> counters(Class<E> type, DayRange days) {
+        Map<E, DailyCounts> counters = new EnumMap<>(type);
+        for (E key : type.getEnumConstants()) {
+            counters.put(key, new DailyCounts(days));
+        }
+        return counters;
+    }
+
+    private static LocalDate toDate(Object createdAt) {
+        return ((LocalDateTime) createdAt).toLocalDate();
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        return amount == null ? 0L : amount.movePointRight(2).longValue();
+    }
+
+    private record DayRange(LocalDate start, LocalDate end) {
+        int length() {
+            return (int) ChronoUnit.DAYS.between(start, end) + 1;
+        }
+
+        int indexOf(LocalDate date) {
+            return (int) ChronoUnit.DAYS.between(start, date);
+        }
+
+        LocalDate dateAt(int index) {
+            return start.plusDays(index);
+        }
+    }
+
+    /**
+     * Per-day creation counts over a day range, with everything created before the range folded
+     * into a single base count so that {@link #upTo(int)} yields the running total.
+     */
+    private static final class DailyCounts {
+        private final DayRange days;
+        private final long[] perDay;
+        private long before;
+        private boolean accumulated;
+
+        DailyCounts(DayRange days) {
+            this.days = days;
+            this.perDay = new long[days.length()];
+        }
+
+        void add(LocalDate date) {
+            if (date.isBefore(days.start())) {
+                before++;
+            } else {
+                perDay[days.indexOf(date)]++;
+            }
+        }
+
+        int upTo(int day) {
+            if (!accumulated) {
+                long total = before;
+                for (int i = 0; i < perDay.length; i++) {
+                    total += perDay[i];
+                    perDay[i] = total;
+                }
+                accumulated = true;
+            }
+            return (int) perDay[day];
+        }
+    }
+}
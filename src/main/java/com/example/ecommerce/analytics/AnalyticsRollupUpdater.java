@@ -0,0 +1,295 @@
+package com.example.ecommerce.analytics;
+
+import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.enums.PaymentMethod;
+import com.example.ecommerce.enums.PaymentStatus;
+import com.example.ecommerce.enums.RollupGrain;
+import com.example.ecommerce.event.OrderStatusChangedEvent;
+import com.example.ecommerce.event.PaymentStatusChangedEvent;
+import com.example.ecommerce.repository.AnalyticsRollupRepository;
+import com.example.ecommerce.service.JobService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains the hour, day, week and month rows of analytics_rollups. Order and payment
+ * changes are counted in memory once their transaction commits, so a rolled back write never
+ * reaches the rollups, and are added to the rows by a periodic flush. Every checkout of a
+ * week or month touches the same row, upserting it in the checkout transaction would hold
+ * that row locked until commit and serialize all concurrent checkouts on it. Cached daily
+ * snapshots whose revenue a flush changed are evicted once it commits.
+ */
+@Component
+@Slf4j
+public class AnalyticsRollupUpdater {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO analytics_rollups (grain, bucket_start,
+                pending_orders, confirmed_orders, shipped_orders, delivered_orders, cancelled_orders,
+                completed_payments, completed_revenue, payment_via_khalti, payment_via_cash_on_delivery,
+                created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, now(), now())
+            ON CONFLICT (grain, bucket_start) DO UPDATE SET
+                pending_orders = analytics_rollups.pending_orders + EXCLUDED.pending_orders,
+                confirmed_orders = analytics_rollups.confirmed_orders + EXCLUDED.confirmed_orders,
+                shipped_orders = analytics_rollups.shipped_orders + EXCLUDED.shipped_orders,
+                delivered_orders = analytics_rollups.delivered_orders + EXCLUDED.delivered_orders,
+                cancelled_orders = analytics_rollups.cancelled_orders + EXCLUDED.cancelled_orders,
+                completed_payments = analytics_rollups.completed_payments + EXCLUDED.completed_payments,
+                completed_revenue = analytics_rollups.completed_revenue + EXCLUDED.completed_revenue,
+                payment_via_khalti = analytics_rollups.payment_via_khalti + EXCLUDED.payment_via_khalti,
+                payment_via_cash_on_delivery = analytics_rollups.payment_via_cash_on_delivery + EXCLUDED.payment_via_cash_on_delivery,
+                updated_at = now()
+            """;
+
+    private static final String REBUILD_ORDERS_SQL = """
+            INSERT INTO analytics_rollups (grain, bucket_start,
+                pending_orders, confirmed_orders, shipped_orders, delivered_orders, cancelled_orders,
+                completed_payments, completed_revenue, payment_via_khalti, payment_via_cash_on_delivery,
+                created_at, updated_at)
+            SELECT ?, date_trunc(?, created_at),
+                COUNT(*) FILTER (WHERE status = 'PENDING'),
+                COUNT(*) FILTER (WHERE status = 'CONFIRMED'),
+                COUNT(*) FILTER (WHERE status = 'SHIPPED'),
+                COUNT(*) FILTER (WHERE status = 'DELIVERED'),
+                COUNT(*) FILTER (WHERE status = 'CANCELLED'),
+                0, 0, 0, 0, now(), now()
+            FROM orders
+            GROUP BY 2
+            """;
+
+    private static final String REBUILD_PAYMENTS_SQL = """
+            INSERT INTO analytics_rollups (grain, bucket_start,
+                pending_orders, confirmed_orders, shipped_orders, delivered_orders, cancelled_orders,
+                completed_payments, completed_revenue, payment_via_khalti, payment_via_cash_on_delivery,
+                created_at, updated_at)
+            SELECT ?, date_trunc(?, created_at),
+                0, 0, 0, 0, 0,
+                COUNT(*) FILTER (WHERE status = 'COMPLETED'),
+                COALESCE(SUM(amount) FILTER (WHERE status = 'COMPLETED'), 0),
+                COUNT(*) FILTER (WHERE method = 'KHALTI'),
+                COUNT(*) FILTER (WHERE method = 'CASH_ON_DELIVERY'),
+                now(), now()
+            FROM payments
+            GROUP BY 2
+            ON CONFLICT (grain, bucket_start) DO UPDATE SET
+                completed_payments = EXCLUDED.completed_payments,
+                completed_revenue = EXCLUDED.completed_revenue,
+                payment_via_khalti = EXCLUDED.payment_via_khalti,
+                payment_via_cash_on_delivery = EXCLUDED.payment_via_cash_on_delivery
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AnalyticsRollupRepository analyticsRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JobService jobService;
+    private final DailyAnalyticsCache dailyAnalyticsCache;
+
+    // Deltas of committed changes not yet added to the rows, replaced as a whole on every change
+    private final Map<RollupKey, Delta> pending = new ConcurrentHashMap<>();
+
+    public AnalyticsRollupUpdater(JdbcTemplate jdbcTemplate,
+                                  AnalyticsRollupRepository analyticsRollupRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  JobService jobService,
+                                  DailyAnalyticsCache dailyAnalyticsCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.analyticsRollupRepository = analyticsRollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jobService = jobService;
+        this.dailyAnalyticsCache = dailyAnalyticsCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        jobService.runExclusively("analytics-rollups-rebuild", Duration.ofHours(1), Duration.ZERO, () -> {
+            if (analyticsRollupRepository.count() == 0) {
+                rebuild();
+            }
+        });
+    }
+
+    /**
+     * Recomputes every rollup row from the orders and payments tables.
+     */
+    public void rebuild() {
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM analytics_rollups");
+            for (RollupGrain grain : RollupGrain.values()) {
+                jdbcTemplate.update(REBUILD_ORDERS_SQL, grain.name(), grain.getTruncUnit());
+                jdbcTemplate.update(REBUILD_PAYMENTS_SQL, grain.name(), grain.getTruncUnit());
+            }
+        });
+        dailyAnalyticsCache.clear();
+        log.info("Rebuilt analytics rollups in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.orderCreatedAt() == null) {
+            return;
+        }
+        Delta delta = Delta.ZERO;
+        if (event.previousStatus() != null) {
+            delta = delta.plus(Delta.order(event.previousStatus(), -1));
+        }
+        if (event.newStatus() != null) {
+            delta = delta.plus(Delta.order(event.newStatus(), 1));
+        }
+        add(event.orderCreatedAt(), delta);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentStatusChanged(PaymentStatusChangedEvent event) {
+        if (event.paymentCreatedAt() == null) {
+            return;
+        }
+        Delta delta = Delta.ZERO;
+        if (event.previousStatus() == null && event.method() != null) {
+            delta = delta.plus(Delta.payment(event.method()));
+        }
+        BigDecimal amount = event.amount() == null ? BigDecimal.ZERO : event.amount();
+        if (event.previousStatus() == PaymentStatus.COMPLETED) {
+            delta = delta.plus(Delta.completed(-1, amount.negate()));
+        }
+        if (event.newStatus() == PaymentStatus.COMPLETED) {
+            delta = delta.plus(Delta.completed(1, amount));
+        }
+        add(event.paymentCreatedAt(), delta);
+    }
+
+    private void add(LocalDateTime time, Delta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        for (RollupGrain grain : RollupGrain.values()) {
+            pending.merge(new RollupKey(grain, grain.bucketStart(time)), delta, Delta::plus);
+        }
+    }
+
+    /**
+     * Adds the deltas gathered since the last flush to analytics_rollups, one row per bucket
+     * however many changes it saw.
+     */
+    @Scheduled(fixedDelayString = "${analytics.rollups.flush-interval-ms:30000}")
+    public void flush() {
+        Map<RollupKey, Delta> drained = new HashMap<>();
+        for (RollupKey key : pending.keySet()) {
+            Delta delta = pending.remove(key);
+            if (delta != null && !delta.isEmpty()) {
+                drained.put(key, delta);
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(drained.size());
+        drained.forEach((key, delta) -> rows.add(new Object[]{
+                key.grain().name(),
+                key.bucketStart(),
+                delta.pendingOrders(),
+                delta.confirmedOrders(),
+                delta.shippedOrders(),
+                delta.deliveredOrders(),
+                delta.cancelledOrders(),
+                delta.completedPayments(),
+                delta.completedRevenue(),
+                delta.paymentViaKhalti(),
+                delta.paymentViaCashOnDelivery()
+        }));
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, rows));
+        } catch (Exception e) {
+            // Put the deltas back so the next flush retries them
+            drained.forEach((key, delta) -> pending.merge(key, delta, Delta::plus));
+            log.error("Failed to flush analytics rollups: {}", e.getMessage(), e);
+            return;
+        }
+        drained.forEach((key, delta) -> {
+            if (delta.completedPayments() != 0 || delta.completedRevenue().signum() != 0) {
+                dailyAnalyticsCache.onRevenueFlushed(key.grain(), key.bucketStart().toLocalDate());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private record RollupKey(RollupGrain grain, LocalDateTime bucketStart) {
+    }
+
+    private record Delta(long pendingOrders,
+                         long confirmedOrders,
+                         long shippedOrders,
+                         long deliveredOrders,
+                         long cancelledOrders,
+                         long completedPayments,
+                         BigDecimal completedRevenue,
+                         long paymentViaKhalti,
+                         long paymentViaCashOnDelivery) {
+
+        static final Delta ZERO = new Delta(0, 0, 0, 0, 0, 0, BigDecimal.ZERO, 0, 0);
+
+        static Delta order(OrderStatus status, long count) {
+            return switch (status) {
+                case PENDING -> new Delta(count, 0, 0, 0, 0, 0, BigDecimal.ZERO, 0, 0);
+                case CONFIRMED -> new Delta(0, count, 0, 0, 0, 0, BigDecimal.ZERO, 0, 0);
+                case SHIPPED -> new Delta(0, 0, count, 0, 0, 0, BigDecimal.ZERO, 0, 0);
+                case DELIVERED -> new Delta(0, 0, 0, count, 0, 0, BigDecimal.ZERO, 0, 0);
+                case CANCELLED -> new Delta(0, 0, 0, 0, count, 0, BigDecimal.ZERO, 0, 0);
+            };
+        }
+
+        static Delta payment(PaymentMethod method) {
+            return switch (method) {
+                case KHALTI -> new Delta(0, 0, 0, 0, 0, 0, BigDecimal.ZERO, 1, 0);
+                case CASH_ON_DELIVERY -> new Delta(0, 0, 0, 0, 0, 0, BigDecimal.ZERO, 0, 1);
+                default -> ZERO;
+            };
+        }
+
+        static Delta completed(long count, BigDecimal revenue) {
+            return new Delta(0, 0, 0, 0, 0, count, revenue, 0, 0);
+        }
+
+        Delta plus(Delta other) {
+            return new Delta(pendingOrders + other.pendingOrders,
+                    confirmedOrders + other.confirmedOrders,
+                    shippedOrders + other.shippedOrders,
+                    deliveredOrders + other.deliveredOrders,
+                    cancelledOrders + other.cancelledOrders,
+                    completedPayments + other.completedPayments,
+                    completedRevenue.add(other.completedRevenue),
+                    paymentViaKhalti + other.paymentViaKhalti,
+                    paymentViaCashOnDelivery + other.paymentViaCashOnDelivery);
+        }
+
+        boolean isEmpty() {
+            return pendingOrders == 0 && confirmedOrders == 0 && shippedOrders == 0 && deliveredOrders == 0
+                    && cancelledOrders == 0 && completedPayments == 0 && completedRevenue.signum() == 0
+                    && paymentViaKhalti == 0 && paymentViaCashOnDelivery == 0;
+        }
+    }
+}
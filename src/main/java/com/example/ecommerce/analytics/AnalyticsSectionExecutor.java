@@ -0,0 +1,139 @@
+package com.example.ecommerce.analytics;
+
+import com.example.ecommerce.dto.AnalyticsDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs independent analytics sections concurrently, each in its own read-only
+ * transaction (and therefore on its own connection). Every section fills a scratch
+ * DTO that is merged into the target only if it finishes within the section
+ * timeout, so a slow section yields a partial result instead of a late write.
+ */
+@Component
+@Slf4j
+public class AnalyticsSectionExecutor {
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolExecutor executor;
+    private final long sectionTimeoutMs;
+
+    public AnalyticsSectionExecutor(PlatformTransactionManager transactionManager,
+                                    @Value("${analytics.sections.pool-size:7}") int poolSize,
+                                    @Value("${analytics.sections.timeout-ms:5000}") long sectionTimeoutMs) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.sectionTimeoutMs = sectionTimeoutMs;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(poolSize * 16),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "analytics-section-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Computes the given sections concurrently and merges every section that completed in time into
+     * {@code target}. Section latencies and the names of sections that failed or timed out are
+     * recorded on the target as well.
+     */
+    public void run(AnalyticsDto target, Map<String, Consumer<AnalyticsDto>> sections) {
+        Map<String, Future<AnalyticsDto>> futures = new LinkedHashMap<>();
+        Map<String, AtomicLong> latencies = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Consumer<AnalyticsDto>> section : sections.entrySet()) {
+            AtomicLong latency = new AtomicLong(-1);
+            latencies.put(section.getKey(), latency);
+            futures.put(section.getKey(), executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return readOnlyTransaction.execute(status -> {
+                        AnalyticsDto scratch = new AnalyticsDto();
+                        section.getValue().accept(scratch);
+                        return scratch;
+                    });
+                } finally {
+                    latency.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+            }));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs);
+        Map<String, Long> sectionLatencies = new LinkedHashMap<>();
+        List<String> incompleteSections = new ArrayList<>();
+
+        for (Map.Entry<String, Future<AnalyticsDto>> entry : futures.entrySet()) {
+            String name = entry.getKey();
+            Future<AnalyticsDto> future = entry.getValue();
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                copyNonNullProperties(future.get(remaining, TimeUnit.NANOSECONDS), target);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                incompleteSections.add(name);
+                log.warn("Analytics section '{}' timed out after {} ms", name, sectionTimeoutMs);
+            } catch (ExecutionException e) {
+                incompleteSections.add(name);
+                log.error("Analytics section '{}' failed: {}", name, e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                incompleteSections.add(name);
+            }
+
+            long latency = latencies.get(name).get();
+            sectionLatencies.put(name, latency >= 0 ? latency : sectionTimeoutMs);
+        }
+
+        log.debug("Analytics section latencies (ms): {}", sectionLatencies);
+        target.setSectionLatenciesMs(sectionLatencies);
+        target.setIncompleteSections(incompleteSections);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static void copyNonNullProperties(AnalyticsDto source, AnalyticsDto target) {
+        BeanWrapper from = new BeanWrapperImpl(source);
+        BeanWrapper to = new BeanWrapperImpl(target);
+        for (PropertyDescriptor property : from.getPropertyDescriptors()) {
+            if (property.getReadMethod() == null || property.getWriteMethod() == null) {
+                continue;
+            }
+            Object value = from.getPropertyValue(property.getName());
+            if (value != null) {
+                to.setPropertyValue(property.getName(), value);
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.ecommerce.analytics;
+
+import com.example.ecommerce.dto.FunnelDayDto;
+import com.example.ecommerce.entity.FunnelDaily;
+import com.example.ecommerce.enums.PaymentStatus;
+import com.example.ecommerce.event.CartItemAddedEvent;
+import com.example.ecommerce.event.OrderLine;
+import com.example.ecommerce.event.OrderStatusChangedEvent;
+import com.example.ecommerce.event.PaymentStatusChangedEvent;
+import com.example.ecommerce.repository.FunnelDailyRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cart add, order placed and payment completed counts per day and category, taken from the
+ * domain events of the cart, order and payment services. Counts accumulate in memory and are
+ * added to funnel_daily on every flush, so reading a funnel never touches carts or orders.
+ * Every stage is counted on the day its event happened.
+ */
+@Component
+@Slf4j
+public class ConversionFunnel {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO funnel_daily (funnel_date, category_id, cart_adds, orders_placed, payments_completed,
+                created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, now(), now())
+            ON CONFLICT (funnel_date, category_id) DO UPDATE SET
+                cart_adds = funnel_daily.cart_adds + EXCLUDED.cart_adds,
+                orders_placed = funnel_daily.orders_placed + EXCLUDED.orders_placed,
+                payments_completed = funnel_daily.payments_completed + EXCLUDED.payments_completed,
+                updated_at = now()
+            """;
+
+    private final FunnelDailyRepository funnelDailyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<FunnelKey, Counts> pending = new ConcurrentHashMap<>();
+
+    public ConversionFunnel(FunnelDailyRepository funnelDailyRepository,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager) {
+        this.funnelDailyRepository = funnelDailyRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCartItemAdded(CartItemAddedEvent event) {
+        LocalDate day = event.addedAt().toLocalDate();
+        counts(day, FunnelDaily.ALL_CATEGORIES).cartAdds.increment();
+        if (event.categoryId() != null) {
+            counts(day, event.categoryId()).cartAdds.increment();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.previousStatus() != null || event.newStatus() == null) {
+            return;
+        }
+        List<Long> categoryIds = event.lines() == null ? List.of() : event.lines().stream()
+                .map(OrderLine::categoryId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        count(LocalDate.now(), categoryIds, counts -> counts.ordersPlaced);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentStatusChanged(PaymentStatusChangedEvent event) {
+        if (event.newStatus() != PaymentStatus.COMPLETED || event.previousStatus() == PaymentStatus.COMPLETED) {
+            return;
+        }
+        count(LocalDate.now(), event.categoryIds() == null ? List.of() : event.categoryIds(),
+                counts -> counts.paymentsCompleted);
+    }
+
+    private void count(LocalDate day, Collection<Long> categoryIds, Function<Counts, LongAdder> stage) {
+        stage.apply(counts(day, FunnelDaily.ALL_CATEGORIES)).increment();
+        for (Long categoryId : categoryIds) {
+            stage.apply(counts(day, categoryId)).increment();
+        }
+    }
+
+    private Counts counts(LocalDate day, long categoryId) {
+        return pending.computeIfAbsent(new FunnelKey(day, categoryId), key -> new Counts());
+    }
+
+    /**
+     * Adds the counts gathered since the last flush to funnel_daily.
+     */
+    @Scheduled(fixedDelayString = "${analytics.funnel.flush-interval-ms:60000}")
+    public void flush() {
+        List<Object[]> rows = new ArrayList<>();
+        List<Drained> drained = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+
+        for (Map.Entry<FunnelKey, Counts> entry : pending.entrySet()) {
+            FunnelKey key = entry.getKey();
+            Counts counts = entry.getValue();
+            long cartAdds = counts.cartAdds.sumThenReset();
+            long ordersPlaced = counts.ordersPlaced.sumThenReset();
+            long paymentsCompleted = counts.paymentsCompleted.sumThenReset();
+            if (cartAdds != 0 || ordersPlaced != 0 || paymentsCompleted != 0) {
+                rows.add(new Object[]{Date.valueOf(key.day()), key.categoryId(), cartAdds, ordersPlaced, paymentsCompleted});
+                drained.add(new Drained(counts, cartAdds, ordersPlaced, paymentsCompleted));
+            } else if (key.day().isBefore(today)) {
+                pending.remove(key, counts);
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, rows));
+        } catch (Exception e) {
+            // Put the counts back so the next flush retries them
+            drained.forEach(Drained::restore);
+            log.error("Failed to flush conversion funnel: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Stage counts per day over the inclusive range, for one category or with a null
+     * category ID for all of them. Days without any activity are left out.
+     */
+    public List<FunnelDayDto> getDays(Long categoryId, LocalDate startDate, LocalDate endDate) {
+        long category = categoryId == null ? FunnelDaily.ALL_CATEGORIES : categoryId;
+        Map<LocalDate, FunnelDayDto> days = new TreeMap<>();
+        for (FunnelDaily row : funnelDailyRepository.findByCategoryIdAndFunnelDateBetweenOrderByFunnelDate(
+                category, startDate, endDate)) {
+            days.put(row.getFunnelDate(), new FunnelDayDto(row.getFunnelDate(),
+                    row.getCartAdds(), row.getOrdersPlaced(), row.getPaymentsCompleted()));
+        }
+
+        // Counts that have not been flushed yet
+        pending.forEach((key, counts) -> {
+            if (key.categoryId() != category || key.day().isBefore(startDate) || key.day().isAfter(endDate)) {
+                return;
+            }
+            FunnelDayDto day = days.computeIfAbsent(key.day(), date -> new FunnelDayDto(date, 0L, 0L, 0L));
+            day.setCartAdds(day.getCartAdds() + counts.cartAdds.sum());
+            day.setOrdersPlaced(day.getOrdersPlaced() + counts.ordersPlaced.sum());
+            day.setPaymentsCompleted(day.getPaymentsCompleted() + counts.paymentsCompleted.sum());
+        });
+        return new ArrayList<>(days.values());
+    }
+
+    private record FunnelKey(LocalDate day, long categoryId) {
+    }
+
+    private static final class Counts {
+        private final LongAdder cartAdds = new LongAdder();
+        private final LongAdder ordersPlaced = new LongAdder();
+        private final LongAdder paymentsCompleted = new LongAdder();
+    }
+
+    private record Drained(Counts counts, long cartAdds, long ordersPlaced, long paymentsCompleted) {
+        void restore() {
+            counts.cartAdds.add(cartAdds);
+            counts.ordersPlaced.add(ordersPlaced);
+            counts.paymentsCompleted.add(paymentsCompleted);
+        }
+    }
+}
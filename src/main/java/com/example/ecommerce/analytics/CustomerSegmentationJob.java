@@ -0,0 +1,281 @@
+package com.example.ecommerce.analytics;
+
+import com.example.ecommerce.enums.CustomerSegment;
+import com.example.ecommerce.repository.UserSegmentRepository;
+import com.example.ecommerce.repository.UserStatsRepository;
+import com.example.ecommerce.service.JobService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Serial;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Nightly RFM segmentation of the whole customer base. Per-user aggregates are streamed from
+ * user_stats into flat arrays, quintile boundaries are found with parallel sorts, and every
+ * user is scored and segmented by a fork-join task before the result replaces user_segments.
+ */
+@Component
+@Slf4j
+public class CustomerSegmentationJob {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO user_segments (user_id, segment, recency_score, frequency_score, monetary_score,
+                recency_days, order_count, total_spent, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, now(), now())
+            """;
+
+    private static final String JOB_NAME = "customer-segmentation";
+
+    // Users below this size are scored sequentially by one fork-join leaf
+    private static final int SCORE_CHUNK = 4096;
+
+    private final UserStatsRepository userStatsRepository;
+    private final UserSegmentRepository userSegmentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ForkJoinPool pool;
+    private final int batchSize;
+    private final JobService jobService;
+
+    public CustomerSegmentationJob(UserStatsRepository userStatsRepository,
+                                   UserSegmentRepository userSegmentRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   JobService jobService,
+                                   @Value("${analytics.segments.parallelism:4}") int parallelism,
+                                   @Value("${analytics.segments.batch-size:1000}") int batchSize) {
+        this.userStatsRepository = userStatsRepository;
+        this.userSegmentRepository = userSegmentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.pool = new ForkJoinPool(parallelism);
+        this.batchSize = batchSize;
+        this.jobService = jobService;
+    }
+
+    // Runs after the user stats have been built on an empty database
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(20)
+    public void segmentIfEmpty() {
+        jobService.runExclusively(JOB_NAME, Duration.ofHours(1), Duration.ZERO, () -> {
+            if (userSegmentRepository.count() == 0) {
+                segmentCustomers();
+            }
+        });
+    }
+
+    // After the nightly user stats rebuild
+    @Scheduled(cron = "${analytics.segments.cron:0 45 1 * * ?}")
+    public void scheduledSegmentation() {
+        jobService.runExclusively(JOB_NAME, Duration.ofHours(1), Duration.ofMinutes(5), this::segmentCustomers);
+    }
+
+    /**
+     * Scores every user and replaces the contents of user_segments. Returns the number of users segmented.
+     */
+    public int segmentCustomers() {
+        long started = System.nanoTime();
+        RfmInputs inputs = readOnlyTransaction.execute(status -> loadInputs(LocalDateTime.now()));
+
+        // Quintile boundaries are taken over customers with at least one order
+        Scores scores = new Scores(inputs.size);
+        Thresholds recency = Thresholds.of(inputs.recencyDays, inputs.orderCount, inputs.size);
+        Thresholds frequency = Thresholds.of(inputs.orderCount, inputs.orderCount, inputs.size);
+        Thresholds monetary = Thresholds.of(inputs.spentMinor, inputs.orderCount, inputs.size);
+        pool.invoke(new ScoreTask(inputs, scores, recency, frequency, monetary, 0, inputs.size));
+
+        List<Object[]> rows = new ArrayList<>(inputs.size);
+        for (int i = 0; i < inputs.size; i++) {
+            rows.add(new Object[]{
+                    inputs.userIds[i],
+                    scores.segments[i].name(),
+                    scores.recency[i],
+                    scores.frequency[i],
+                    scores.monetary[i],
+                    inputs.orderCount[i] > 0 ? (int) inputs.recencyDays[i] : null,
+                    (int) inputs.orderCount[i],
+                    BigDecimal.valueOf(inputs.spentMinor[i], 2)
+            });
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM user_segments");
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows.subList(from, Math.min(from + batchSize, rows.size())));
+            }
+        });
+
+        log.info("Segmented {} customers in {} ms", inputs.size,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return inputs.size;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private RfmInputs loadInputs(LocalDateTime now) {
+        RfmInputs inputs = new RfmInputs();
+        try (Stream<Object[]> rows = userStatsRepository.streamRfmInputs()) {
+            rows.forEach(row -> {
+                LocalDateTime lastOrder = (LocalDateTime) row[1];
+                int orders = row[2] == null ? 0 : ((Number) row[2]).intValue();
+                BigDecimal spent = row[3] == null ? BigDecimal.ZERO : (BigDecimal) row[3];
+                inputs.add((Long) row[0],
+                        lastOrder == null ? Long.MAX_VALUE : ChronoUnit.DAYS.between(lastOrder, now),
+                        orders,
+                        spent.movePointRight(2).longValue());
+            });
+        }
+        return inputs;
+    }
+
+    /**
+     * Flat, growable column arrays, so that a large customer base costs a few primitive arrays
+     * rather than one object per user.
+     */
+    private static final class RfmInputs {
+        private long[] userIds = new long[1024];
+        private long[] recencyDays = new long[1024];
+        private long[] orderCount = new long[1024];
+        private long[] spentMinor = new long[1024];
+        private int size;
+
+        void add(long userId, long days, long orders, long spent) {
+            if (size == userIds.length) {
+                int capacity = size * 2;
+                userIds = Arrays.copyOf(userIds, capacity);
+                recencyDays = Arrays.copyOf(recencyDays, capacity);
+                orderCount = Arrays.copyOf(orderCount, capacity);
+                spentMinor = Arrays.copyOf(spentMinor, capacity);
+            }
+            userIds[size] = userId;
+            recencyDays[size] = days;
+            orderCount[size] = orders;
+            spentMinor[size] = spent;
+            size++;
+        }
+    }
+
+    private static final class Scores {
+        private final int[] recency;
+        private final int[] frequency;
+        private final int[] monetary;
+        private final CustomerSegment[] segments;
+
+        Scores(int size) {
+            recency = new int[size];
+            frequency = new int[size];
+            monetary = new int[size];
+            segments = new CustomerSegment[size];
+        }
+    }
+
+    /**
+     * The 20th, 40th, 60th and 80th percentile of a column over the users that have ordered.
+     */
+    private record Thresholds(long[] cuts) {
+
+        static Thresholds of(long[] values, long[] orderCount, int size) {
+            long[] buyers = new long[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (orderCount[i] > 0) {
+                    buyers[count++] = values[i];
+                }
+            }
+            buyers = Arrays.copyOf(buyers, count);
+            Arrays.parallelSort(buyers);
+
+            long[] cuts = new long[4];
+            for (int k = 1; k <= 4; k++) {
+                cuts[k - 1] = count == 0 ? 0 : buyers[Math.min(count - 1, (int) ((long) k * count / 5))];
+            }
+            return new Thresholds(cuts);
+        }
+
+        // 1 for the lowest quintile up to 5 for the highest
+        int score(long value) {
+            int score = 1;
+            for (long cut : cuts) {
+                if (value > cut) {
+                    score++;
+                }
+            }
+            return Math.min(score, 5);
+        }
+    }
+
+    private static final class ScoreTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final RfmInputs inputs;
+        private final Scores scores;
+        private final Thresholds recency;
+        private final Thresholds frequency;
+        private final Thresholds monetary;
+        private final int from;
+        private final int to;
+
+        ScoreTask(RfmInputs inputs, Scores scores, Thresholds recency, Thresholds frequency,
+                  Thresholds monetary, int from, int to) {
+            this.inputs = inputs;
+            this.scores = scores;
+            this.recency = recency;
+            this.frequency = frequency;
+            this.monetary = monetary;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SCORE_CHUNK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScoreTask(inputs, scores, recency, frequency, monetary, from, middle),
+                        new ScoreTask(inputs, scores, recency, frequency, monetary, middle, to));
+                return;
+            }
+
+            for (int i = from; i < to; i++) {
+                if (inputs.orderCount[i] == 0) {
+                    scores.segments[i] = CustomerSegment.PROSPECT;
+                    continue;
+                }
+                // Fewer days since the last order is better, so the recency scale is reversed
+                int r = 6 - recency.score(inputs.recencyDays[i]);
+                int f = frequency.score(inputs.orderCount[i]);
+                int m = monetary.score(inputs.spentMinor[i]);
+                scores.recency[i] = r;
+                scores.frequency[i] = f;
+                scores.monetary[i] = m;
+                scores.segments[i] = CustomerSegment.of(r, f, m);
+            }
+        }
+    }
+}
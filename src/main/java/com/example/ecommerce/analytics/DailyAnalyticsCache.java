@@ -0,0 +1,143 @@
+package com.example.ecommerce.analytics;
+
+import com.example.ecommerce.cache.CacheCounters;
+import com.example.ecommerce.dto.AnalyticsDto;
+import com.example.ecommerce.dto.CacheStatsDto;
+import com.example.ecommerce.enums.RollupGrain;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Daily analytics snapshots of days that are over. Such a day only changes through a backfill
+ * or a payment of that day completing late. The backfill evicts it, and the rollup flush that
+ * writes the late payment's revenue does too, so a past day is kept
+ * until then, or until it is older than the TTL so that changes made on another node show up.
+ * Today and later dates are always loaded. Days without a snapshot after the earliest one seen
+ * are cached as absent too, so that a range with gaps is still answered from memory.
+ * Cached DTOs are shared between callers and must not be modified.
+ */
+@Component
+public class DailyAnalyticsCache {
+
+    private final int maxRangeDays;
+    private final long ttlNanos;
+
+    private final Map<LocalDate, Entry> days = new ConcurrentHashMap<>();
+    // Absent days before this one are not cached, a range reaching back before any snapshot stays small
+    private volatile LocalDate earliestSnapshot;
+
+    private final CacheCounters counters = new CacheCounters();
+
+    public DailyAnalyticsCache(@Value("${analytics.cache.max-range-days:366}") int maxRangeDays,
+                               @Value("${analytics.cache.ttl:PT1H}") Duration ttl) {
+        this.maxRangeDays = maxRangeDays;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * The snapshots of the inclusive range, newest first. Days that are not cached are read
+     * with a single loader call spanning all of them.
+     */
+    public List<AnalyticsDto> getRange(LocalDate startDate, LocalDate endDate,
+                                       BiFunction<LocalDate, LocalDate, List<AnalyticsDto>> loader) {
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= maxRangeDays) {
+            throw new IllegalArgumentException("Date range must not exceed " + maxRangeDays + " days");
+        }
+        LocalDate today = LocalDate.now();
+        long now = System.nanoTime();
+        Map<LocalDate, Optional<AnalyticsDto>> found = new HashMap<>();
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            Entry cached = day.isBefore(today) ? days.get(day) : null;
+            if (cached != null && now - cached.loadedAt() >= ttlNanos) {
+                if (days.remove(day, cached)) {
+                    counters.evicted();
+                }
+                cached = null;
+            }
+            if (cached != null) {
+                counters.hit();
+                found.put(day, cached.snapshot());
+            } else {
+                counters.miss();
+                if (firstMissing == null) {
+                    firstMissing = day;
+                }
+                lastMissing = day;
+            }
+        }
+
+        if (firstMissing != null) {
+            Map<LocalDate, AnalyticsDto> loaded = new HashMap<>();
+            for (AnalyticsDto dto : loader.apply(firstMissing, lastMissing)) {
+                loaded.put(dto.getAnalyticsDate(), dto);
+                if (earliestSnapshot == null || dto.getAnalyticsDate().isBefore(earliestSnapshot)) {
+                    earliestSnapshot = dto.getAnalyticsDate();
+                }
+            }
+            LocalDate earliest = earliestSnapshot;
+            for (LocalDate day = firstMissing; !day.isAfter(lastMissing); day = day.plusDays(1)) {
+                Optional<AnalyticsDto> snapshot = Optional.ofNullable(loaded.get(day));
+                found.put(day, snapshot);
+                boolean known = snapshot.isPresent() || (earliest != null && day.isAfter(earliest));
+                if (day.isBefore(today) && known) {
+                    days.put(day, new Entry(snapshot, now));
+                }
+            }
+        }
+
+        List<AnalyticsDto> result = new ArrayList<>(found.size());
+        for (LocalDate day = endDate; !day.isBefore(startDate); day = day.minusDays(1)) {
+            found.getOrDefault(day, Optional.empty()).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    public void evict(LocalDate startDate, LocalDate endDate) {
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            if (days.remove(day) != null) {
+                counters.evicted();
+            }
+        }
+    }
+
+    public void clear() {
+        counters.evicted(days.size());
+        days.clear();
+        earliestSnapshot = null;
+    }
+
+    /**
+     * Called once the completed revenue of a rollup row has been written. Snapshots read the
+     * revenue of their day from the DAY row and the last month revenue from the MONTH row of
+     * the month before, evicting earlier would reload the old revenue and cache it again.
+     */
+    public void onRevenueFlushed(RollupGrain grain, LocalDate bucketStart) {
+        if (grain == RollupGrain.DAY) {
+            evict(bucketStart, bucketStart);
+        } else if (grain == RollupGrain.MONTH) {
+            LocalDate nextMonth = bucketStart.plusMonths(1);
+            evict(nextMonth, nextMonth.plusMonths(1).minusDays(1));
+        }
+    }
+
+    public CacheStatsDto getStats() {
+        return counters.stats("dailyAnalytics", days.size());
+    }
+
+    private record Entry(Optional<AnalyticsDto> snapshot, long loadedAt) {
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.ecommerce.analytics;
+
+import com.example.ecommerce.dto.AnalyticsDto;
+import com.example.ecommerce.enums.Gender;
+import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.enums.PaymentMethod;
+import com.example.ecommerce.enums.PaymentStatus;
+import com.example.ecommerce.event.OrderStatusChangedEvent;
+import com.example.ecommerce.event.PaymentStatusChangedEvent;
+import com.example.ecommerce.event.ProductChangedEvent;
+import com.example.ecommerce.event.UserChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process counters behind /analytics/system, keyed by the same dimensions the
+ * Analytics entity stores. Write paths keep them current through domain events
+ * applied after commit, and a periodic reconcile resets them from the database so
+ * that any drift (rolled back transactions, writes from other nodes) is bounded.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LiveAnalyticsCounters {
+
+    private final AnalyticsAggregator analyticsAggregator;
+
+    private final Map<Gender, LongAdder> usersByGender = adders(Gender.class);
+    private final LongAdder activeUsers = new LongAdder();
+    private final LongAdder inactiveUsers = new LongAdder();
+
+    private final LongAdder activeProducts = new LongAdder();
+    private final LongAdder inactiveProducts = new LongAdder();
+
+    private final Map<OrderStatus, LongAdder> ordersByStatus = adders(OrderStatus.class);
+
+    // Counted on its own, payments without a method are in no per-method counter
+    private final LongAdder totalPayments = new LongAdder();
+    private final Map<PaymentMethod, LongAdder> paymentsByMethod = adders(PaymentMethod.class);
+    private final Map<PaymentStatus, LongAdder> paymentsByStatus = adders(PaymentStatus.class);
+
+    // Completed revenue in minor units (paisa), amounts are stored with scale 2
+    private final LongAdder completedRevenueMinor = new LongAdder();
+
+    // Account age only moves once a day, so the buckets are refreshed on reconcile
+    private volatile AnalyticsAggregator.AgeBuckets ageBuckets;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.counters.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        try {
+            AnalyticsAggregator.UserCounts users = analyticsAggregator.countUsers();
+            AnalyticsAggregator.ProductCounts products = analyticsAggregator.countProducts();
+            Map<OrderStatus, Long> orders = analyticsAggregator.countOrdersByStatus();
+            AnalyticsAggregator.PaymentCounts payments = analyticsAggregator.countPayments();
+            BigDecimal revenue = analyticsAggregator.sumCompletedRevenue();
+
+            usersByGender.forEach((gender, adder) -> reset(adder, users.withGender(gender)));
+            reset(activeUsers, users.active());
+            reset(inactiveUsers, users.inactive());
+
+            reset(activeProducts, products.active());
+            reset(inactiveProducts, products.inactive());
+
+            ordersByStatus.forEach((status, adder) -> reset(adder, orders.getOrDefault(status, 0L)));
+
+            reset(totalPayments, payments.total());
+            paymentsByMethod.forEach((method, adder) -> reset(adder, payments.withMethod(method)));
+            paymentsByStatus.forEach((status, adder) -> reset(adder, payments.withStatus(status)));
+            reset(completedRevenueMinor, toMinorUnits(revenue));
+
+            ageBuckets = analyticsAggregator.countUsersByAccountAge(LocalDate.now());
+            ready = true;
+        } catch (Exception e) {
+            log.error("Failed to reconcile live analytics counters: {}", e.getMessage(), e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.previousGender() != null) {
+            usersByGender.get(event.previousGender()).decrement();
+        }
+        if (event.previousActive() != null) {
+            (event.previousActive() ? activeUsers : inactiveUsers).decrement();
+        }
+        if (event.newGender() != null) {
+            usersByGender.get(event.newGender()).increment();
+        }
+        if (event.newActive() != null) {
+            (event.newActive() ? activeUsers : inactiveUsers).increment();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.previousActive() != null) {
+            (event.previousActive() ? activeProducts : inactiveProducts).decrement();
+        }
+        if (event.newActive() != null) {
+            (event.newActive() ? activeProducts : inactiveProducts).increment();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.previousStatus() != null) {
+            ordersByStatus.get(event.previousStatus()).decrement();
+        }
+        if (event.newStatus() != null) {
+            ordersByStatus.get(event.newStatus()).increment();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentStatusChanged(PaymentStatusChangedEvent event) {
+        if (event.previousStatus() == null) {
+            totalPayments.increment();
+            if (event.method() != null) {
+                paymentsByMethod.get(event.method()).increment();
+            }
+        }
+        if (event.previousStatus() != null) {
+            paymentsByStatus.get(event.previousStatus()).decrement();
+        }
+        if (event.newStatus() != null) {
+            paymentsByStatus.get(event.newStatus()).increment();
+        }
+
+        long amount = toMinorUnits(event.amount());
+        if (event.previousStatus() == PaymentStatus.COMPLETED) {
+            completedRevenueMinor.add(-amount);
+        }
+        if (event.newStatus() == PaymentStatus.COMPLETED) {
+            completedRevenueMinor.add(amount);
+        }
+    }
+
+    /**
+     * Copies the user, product, order and payment counters and the all-time revenue into the DTO.
+     */
+    public void applyTo(AnalyticsDto analyticsDto) {
+        long active = activeUsers.sum();
+        long inactive = inactiveUsers.sum();
+        analyticsDto.setTotalUsers((int) (active + inactive));
+        analyticsDto.setActiveUsers((int) active);
+        analyticsDto.setInactiveUsers((int) inactive);
+        analyticsDto.setMaleUsers((int) usersByGender.get(Gender.MALE).sum());
+        analyticsDto.setFemaleUsers((int) usersByGender.get(Gender.FEMALE).sum());
+        analyticsDto.setOtherGenderUsers((int) usersByGender.get(Gender.OTHER).sum());
+
+        AnalyticsAggregator.AgeBuckets buckets = ageBuckets;
+        analyticsDto.setUsersFromTenToTwenty((int) buckets.tenToTwenty());
+        analyticsDto.setUsersFromTwentyToThirty((int) buckets.twentyToThirty());
+        analyticsDto.setUsersAboveThirty((int) buckets.aboveThirty());
+
+        applyProductsTo(analyticsDto);
+
+        analyticsDto.setTotalOrders((int) ordersByStatus.values().stream().mapToLong(LongAdder::sum).sum());
+        analyticsDto.setPendingOrders((int) ordersByStatus.get(OrderStatus.PENDING).sum());
+        analyticsDto.setConfirmedOrders((int) ordersByStatus.get(OrderStatus.CONFIRMED).sum());
+        analyticsDto.setShippedOrders((int) ordersByStatus.get(OrderStatus.SHIPPED).sum());
+        analyticsDto.setDeliveredOrders((int) ordersByStatus.get(OrderStatus.DELIVERED).sum());
+        analyticsDto.setCancelledOrders((int) ordersByStatus.get(OrderStatus.CANCELLED).sum());
+
+        analyticsDto.setTotalPayments((int) totalPayments.sum());
+        analyticsDto.setPaymentViaKhalti((int) paymentsByMethod.get(PaymentMethod.KHALTI).sum());
+        analyticsDto.setPaymentViaCashOnDelivery((int) paymentsByMethod.get(PaymentMethod.CASH_ON_DELIVERY).sum());
+        analyticsDto.setPaymentViaCreditCard(0);
+        analyticsDto.setPaymentViaDebitCard(0);
+        analyticsDto.setPaymentViaEsewa(0);
+        analyticsDto.setPaymentViaBankTransfer(0);
+        analyticsDto.setPendingPayment((int) paymentsByStatus.get(PaymentStatus.PENDING).sum());
+        analyticsDto.setCompletedPayment((int) paymentsByStatus.get(PaymentStatus.COMPLETED).sum());
+        analyticsDto.setFailedPayment((int) paymentsByStatus.get(PaymentStatus.FAILED).sum());
+        analyticsDto.setRefundedPayment((int) paymentsByStatus.get(PaymentStatus.REFUNDED).sum());
+
+        analyticsDto.setTotalRevenue(BigDecimal.valueOf(completedRevenueMinor.sum(), 2));
+    }
+
+    /**
+     * Copies only the product counters into the DTO.
+     */
+    public void applyProductsTo(AnalyticsDto analyticsDto) {
+        long activeProductCount = activeProducts.sum();
+        long inactiveProductCount = inactiveProducts.sum();
+        analyticsDto.setTotalProducts((int) (activeProductCount + inactiveProductCount));
+        analyticsDto.setActiveProducts((int) activeProductCount);
+        analyticsDto.setInactiveProducts((int) inactiveProductCount);
+    }
+
+    private static <E extends Enum<E>> Map<E, LongAdder> adders(Class<E> type) {
+        Map<E, LongAdder> adders = new EnumMap<>(type);
+        for (E key : type.getEnumConstants()) {
+            adders.put(key, new LongAdder());
+        }
+        return adders;
+    }
+
+    private static void reset(LongAdder adder, long value) {
+        adder.reset();
+        adder.add(value);
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        return amount == null ? 0L : amount.movePointRight(2).longValue();
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.ecommerce.analytics;
+
+import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.event.OrderLine;
+import com.example.ecommerce.event.OrderStatusChangedEvent;
+import com.example.ecommerce.event.ProductChangedEvent;
+import com.example.ecommerce.repository.OrderItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory ranking of products by units sold, behind the popular products of /analytics.
+ * Units are tallied all-time and per order day for the last few days, so the ranking can also
+ * be asked for a recent window. Orders that are created, cancelled or deleted adjust the tallies
+ * after commit, and the ranking itself is only recomputed when a tally has changed.
+ * Cancelled orders do not count as sold.
+ */
+@Component
+@Slf4j
+public class ProductLeaderboard {
+
+    private static final Comparator<Map.Entry<Long, Long>> BY_UNITS =
+            Map.Entry.<Long, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+
+    private final OrderItemRepository orderItemRepository;
+    private final int size;
+    private final int maxWindowDays;
+
+    private volatile Tallies tallies = new Tallies();
+    private final AtomicLong version = new AtomicLong();
+    // Keyed by window in days, 0 for all-time
+    private final Map<Integer, Ranking> rankings = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public ProductLeaderboard(OrderItemRepository orderItemRepository,
+                              @Value("${analytics.leaderboard.size:50}") int size,
+                              @Value("${analytics.leaderboard.max-window-days:30}") int maxWindowDays) {
+        this.orderItemRepository = orderItemRepository;
+        this.size = size;
+        this.maxWindowDays = maxWindowDays;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Bounds the drift from rolled back transactions and writes made by other nodes
+    @Scheduled(fixedDelayString = "${analytics.leaderboard.rebuild-interval-ms:3600000}",
+            initialDelayString = "${analytics.leaderboard.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Reloads every tally from the order items table.
+     */
+    public void rebuild() {
+        try {
+            long started = System.nanoTime();
+            Tallies rebuilt = new Tallies();
+            for (Object[] row : orderItemRepository.sumQuantityByProductExcludingStatus(OrderStatus.CANCELLED)) {
+                rebuilt.allTime.computeIfAbsent((Long) row[0], id -> new LongAdder()).add(((Number) row[1]).longValue());
+            }
+            LocalDateTime since = LocalDate.now().minusDays(maxWindowDays - 1L).atStartOfDay();
+            for (Object[] row : orderItemRepository.findQuantitiesSinceExcludingStatus(since, OrderStatus.CANCELLED)) {
+                rebuilt.day(((LocalDateTime) row[1]).toLocalDate())
+                        .computeIfAbsent((Long) row[0], id -> new LongAdder()).add(((Number) row[2]).longValue());
+            }
+
+            tallies = rebuilt;
+            version.incrementAndGet();
+            ready = true;
+            log.info("Rebuilt product leaderboard for {} products in {} ms", rebuilt.allTime.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (Exception e) {
+            log.error("Failed to rebuild product leaderboard: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${analytics.leaderboard.prune-cron:0 5 0 * * ?}")
+    public void pruneExpiredDays() {
+        LocalDate oldest = LocalDate.now().minusDays(maxWindowDays - 1L);
+        tallies.daily.keySet().removeIf(day -> day.isBefore(oldest));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        int sign = counted(event.newStatus()) - counted(event.previousStatus());
+        if (sign == 0 || event.lines() == null || event.lines().isEmpty()) {
+            return;
+        }
+
+        Tallies current = tallies;
+        LocalDate orderDay = event.orderCreatedAt() == null ? null : event.orderCreatedAt().toLocalDate();
+        boolean inWindow = orderDay != null && !orderDay.isBefore(LocalDate.now().minusDays(maxWindowDays - 1L));
+        for (OrderLine line : event.lines()) {
+            if (line.productId() == null || line.quantity() == null) {
+                continue;
+            }
+            long units = (long) sign * line.quantity();
+            current.allTime.computeIfAbsent(line.productId(), id -> new LongAdder()).add(units);
+            if (inWindow) {
+                current.day(orderDay).computeIfAbsent(line.productId(), id -> new LongAdder()).add(units);
+            }
+        }
+        version.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.newActive() == null) {
+            Tallies current = tallies;
+            current.allTime.remove(event.productId());
+            current.daily.values().forEach(day -> day.remove(event.productId()));
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * IDs of the best selling products, best first. A null window ranks on all-time sales,
+     * otherwise on the units of orders placed in the last windowDays days including today.
+     * Until the tallies are loaded a window is ranked from the order items table instead.
+     */
+    public List<Long> topProductIds(int limit, Integer windowDays) {
+        if (windowDays != null && (windowDays < 1 || windowDays > maxWindowDays)) {
+            throw new IllegalArgumentException("windowDays must be between 1 and " + maxWindowDays);
+        }
+        int window = windowDays == null ? 0 : windowDays;
+        long currentVersion = version.get();
+        LocalDate today = LocalDate.now();
+        if (!ready && window > 0) {
+            List<Long> ids = rankFromOrderItems(window, today);
+            return ids.subList(0, Math.min(limit, ids.size()));
+        }
+
+        Ranking ranking = rankings.get(window);
+        if (ranking == null || ranking.version() != currentVersion || !ranking.day().equals(today)) {
+            ranking = new Ranking(currentVersion, today, rank(window, today));
+            rankings.put(window, ranking);
+        }
+        List<Long> ids = ranking.productIds();
+        return ids.subList(0, Math.min(limit, ids.size()));
+    }
+
+    private List<Long> rank(int window, LocalDate today) {
+        Map<Long, Long> units = new HashMap<>();
+        Tallies current = tallies;
+        if (window == 0) {
+            current.allTime.forEach((id, adder) -> units.put(id, adder.sum()));
+        } else {
+            for (int i = 0; i < window; i++) {
+                Map<Long, LongAdder> day = current.daily.get(today.minusDays(i));
+                if (day != null) {
+                    day.forEach((id, adder) -> units.merge(id, adder.sum(), Long::sum));
+                }
+            }
+        }
+        return top(units);
+    }
+
+    private List<Long> rankFromOrderItems(int window, LocalDate today) {
+        Map<Long, Long> units = new HashMap<>();
+        LocalDateTime since = today.minusDays(window - 1L).atStartOfDay();
+        for (Object[] row : orderItemRepository.findQuantitiesSinceExcludingStatus(since, OrderStatus.CANCELLED)) {
+            units.merge((Long) row[0], ((Number) row[2]).longValue(), Long::sum);
+        }
+        return top(units);
+    }
+
+    private List<Long> top(Map<Long, Long> units) {
+        // Bounded min-heap, so ranking n products costs O(n log size)
+        PriorityQueue<Map.Entry<Long, Long>> heap = new PriorityQueue<>(size + 1, BY_UNITS);
+        for (Map.Entry<Long, Long> entry : units.entrySet()) {
+            if (entry.getValue() <= 0) {
+                continue;
+            }
+            heap.offer(entry);
+            if (heap.size() > size) {
+                heap.poll();
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ids.add(heap.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return List.copyOf(ids);
+    }
+
+    private static int counted(OrderStatus status) {
+        return status != null && status != OrderStatus.CANCELLED ? 1 : 0;
+    }
+
+    private static final class Tallies {
+        private final Map<Long, LongAdder> allTime = new ConcurrentHashMap<>();
+        private final Map<LocalDate, Map<Long, LongAdder>> daily = new ConcurrentHashMap<>();
+
+        Map<Long, LongAdder> day(LocalDate day) {
+            return daily.computeIfAbsent(day, d -> new ConcurrentHashMap<>());
+        }
+    }
+
+    private record Ranking(long version, LocalDate day, List<Long> productIds) {
+    }
+}
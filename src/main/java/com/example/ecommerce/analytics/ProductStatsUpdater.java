@@ -0,0 +1,151 @@
+package com.example.ecommerce.analytics;
+
+import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.event.OrderLine;
+import com.example.ecommerce.event.OrderStatusChangedEvent;
+import com.example.ecommerce.event.ProductChangedEvent;
+import com.example.ecommerce.repository.ProductStatsRepository;
+import com.example.ecommerce.service.JobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains the product_stats read model. Every order line is applied as an additive upsert
+ * inside the transaction that created, cancelled or deleted the order, so a hot product row
+ * is only ever changed by a single atomic statement and a rolled back order never counts.
+ */
+@Component
+@Slf4j
+public class ProductStatsUpdater {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO product_stats (product_id, units_sold, revenue, order_count, last_sold_at,
+                created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, now(), now())
+            ON CONFLICT (product_id) DO UPDATE SET
+                units_sold = product_stats.units_sold + EXCLUDED.units_sold,
+                revenue = product_stats.revenue + EXCLUDED.revenue,
+                order_count = product_stats.order_count + EXCLUDED.order_count,
+                last_sold_at = GREATEST(product_stats.last_sold_at, EXCLUDED.last_sold_at),
+                updated_at = now()
+            """;
+
+    private static final String REBUILD_SQL = """
+            INSERT INTO product_stats (product_id, units_sold, revenue, order_count, last_sold_at,
+                created_at, updated_at)
+            SELECT oi.product_id, SUM(oi.quantity), COALESCE(SUM(oi.total_price), 0), COUNT(DISTINCT o.id),
+                MAX(o.created_at), now(), now()
+            FROM order_items oi
+            JOIN orders o ON o.id = oi.order_id
+            WHERE o.status <> 'CANCELLED'
+            GROUP BY oi.product_id
+            """;
+
+    private static final String JOB_NAME = "product-stats-rebuild";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductStatsRepository productStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JobService jobService;
+
+    public ProductStatsUpdater(JdbcTemplate jdbcTemplate,
+                               ProductStatsRepository productStatsRepository,
+                               PlatformTransactionManager transactionManager,
+                               JobService jobService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productStatsRepository = productStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jobService = jobService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        jobService.runExclusively(JOB_NAME, Duration.ofHours(1), Duration.ZERO, () -> {
+            if (productStatsRepository.count() == 0) {
+                rebuild();
+            }
+        });
+    }
+
+    @Scheduled(cron = "${analytics.product-stats.rebuild-cron:0 30 1 * * ?}")
+    public void scheduledRebuild() {
+        jobService.runExclusively(JOB_NAME, Duration.ofHours(1), Duration.ofMinutes(5), this::rebuild);
+    }
+
+    /**
+     * Recomputes every product_stats row from the order items, which also moves lastSoldAt
+     * back for products whose latest order was cancelled or deleted.
+     */
+    public void rebuild() {
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM product_stats");
+            jdbcTemplate.update(REBUILD_SQL);
+        });
+        log.info("Rebuilt product stats in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        int sign = counted(event.newStatus()) - counted(event.previousStatus());
+        if (sign == 0 || event.lines() == null || event.lines().isEmpty()) {
+            return;
+        }
+
+        // Sorted by product so concurrent orders lock shared rows in the same order
+        Map<Long, Delta> byProduct = new TreeMap<>();
+        for (OrderLine line : event.lines()) {
+            if (line.productId() == null || line.quantity() == null) {
+                continue;
+            }
+            Delta delta = byProduct.computeIfAbsent(line.productId(), id -> new Delta());
+            delta.units += (long) sign * line.quantity();
+            if (line.totalPrice() != null) {
+                delta.revenue = delta.revenue.add(line.totalPrice().multiply(BigDecimal.valueOf(sign)));
+            }
+        }
+        if (byProduct.isEmpty()) {
+            return;
+        }
+
+        // Only a new order moves lastSoldAt, GREATEST keeps it otherwise
+        Timestamp soldAt = event.previousStatus() == null && event.orderCreatedAt() != null
+                ? Timestamp.valueOf(event.orderCreatedAt()) : null;
+        List<Object[]> rows = new ArrayList<>(byProduct.size());
+        byProduct.forEach((productId, delta) ->
+                rows.add(new Object[]{productId, delta.units, delta.revenue, (long) sign, soldAt}));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.newActive() == null) {
+            productStatsRepository.deleteById(event.productId());
+        }
+    }
+
+    // Whether an order in this status counts as sold, a null status is a missing order
+    private static int counted(OrderStatus status) {
+        return status != null && status != OrderStatus.CANCELLED ? 1 : 0;
+    }
+
+    private static final class Delta {
+        private long units;
+        private BigDecimal revenue = BigDecimal.ZERO;
+    }
+}
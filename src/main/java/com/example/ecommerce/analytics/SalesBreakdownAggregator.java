@@ -0,0 +1,195 @@
+package com.example.ecommerce.analytics;
+
+import com.example.ecommerce.cache.CacheCounters;
+import com.example.ecommerce.dto.CacheStatsDto;
+import com.example.ecommerce.dto.SalesBreakdownRowDto;
+import com.example.ecommerce.enums.SalesDimension;
+import com.example.ecommerce.event.CategoryChangedEvent;
+import com.example.ecommerce.event.OrderStatusChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Units, revenue and orders per category or per customer country. Each dimension is one
+ * GROUP BY over order items joined to their order and product or user, grouped by order day
+ * as well, and the per-day results of finished days are cached. A day is evicted when one of
+ * its orders is created, cancelled or deleted, and category days are dropped when a category
+ * changes since the rows carry its name. Cached days expire after the TTL so that changes made
+ * on another node show up, and once the cache is full further days are loaded but not kept.
+ * Cancelled orders are not counted, and revenue is the order item total.
+ */
+@Component
+public class SalesBreakdownAggregator {
+
+    private static final String BY_CATEGORY_SQL = """
+            SELECT CAST(o.created_at AS date), CAST(c.id AS varchar), c.name,
+                SUM(oi.quantity), SUM(oi.total_price), COUNT(DISTINCT o.id)
+            FROM order_items oi
+            JOIN orders o ON o.id = oi.order_id
+            JOIN products p ON p.id = oi.product_id
+            LEFT JOIN categories c ON c.id = p.category_id
+            WHERE o.created_at >= ? AND o.created_at < ? AND o.status <> 'CANCELLED'
+            GROUP BY 1, 2, 3
+            """;
+
+    private static final String BY_COUNTRY_SQL = """
+            SELECT CAST(o.created_at AS date), u.country, u.country,
+                SUM(oi.quantity), SUM(oi.total_price), COUNT(DISTINCT o.id)
+            FROM order_items oi
+            JOIN orders o ON o.id = oi.order_id
+            JOIN users u ON u.id = o.user_id
+            WHERE o.created_at >= ? AND o.created_at < ? AND o.status <> 'CANCELLED'
+            GROUP BY 1, 2
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxRangeDays;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final Map<DayKey, Entry> days = new ConcurrentHashMap<>();
+    private final CacheCounters counters = new CacheCounters();
+
+    public SalesBreakdownAggregator(JdbcTemplate jdbcTemplate,
+                                    @Value("${analytics.breakdown.max-range-days:366}") int maxRangeDays,
+                                    @Value("${analytics.breakdown.max-size:4000}") int maxSize,
+                                    @Value("${analytics.breakdown.ttl:PT1H}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxRangeDays = maxRangeDays;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Totals per dimension value over the inclusive range, highest revenue first.
+     */
+    public List<SalesBreakdownRowDto> getBreakdown(SalesDimension dimension, LocalDate startDate, LocalDate endDate) {
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= maxRangeDays) {
+            throw new IllegalArgumentException("Date range must not exceed " + maxRangeDays + " days");
+        }
+        LocalDate today = LocalDate.now();
+        long now = System.nanoTime();
+        List<List<SalesBreakdownRowDto>> perDay = new ArrayList<>();
+        List<LocalDate> missing = new ArrayList<>();
+
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            DayKey key = new DayKey(dimension, day);
+            Entry cached = day.isBefore(today) ? days.get(key) : null;
+            if (cached != null && now - cached.loadedAt() >= ttlNanos) {
+                if (days.remove(key, cached)) {
+                    counters.evicted();
+                }
+                cached = null;
+            }
+            if (cached != null) {
+                counters.hit();
+                perDay.add(cached.rows());
+            } else {
+                counters.miss();
+                missing.add(day);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            // One query over the span of all missing days
+            Map<LocalDate, List<SalesBreakdownRowDto>> loaded =
+                    load(dimension, missing.get(0), missing.get(missing.size() - 1));
+            for (LocalDate day : missing) {
+                List<SalesBreakdownRowDto> rows = List.copyOf(loaded.getOrDefault(day, List.of()));
+                if (day.isBefore(today) && days.size() < maxSize) {
+                    days.put(new DayKey(dimension, day), new Entry(rows, now));
+                }
+                perDay.add(rows);
+            }
+        }
+
+        Map<String, SalesBreakdownRowDto> totals = new LinkedHashMap<>();
+        for (List<SalesBreakdownRowDto> rows : perDay) {
+            for (SalesBreakdownRowDto row : rows) {
+                totals.merge(Objects.toString(row.getKey(), ""), copy(row), (total, next) -> {
+                    total.setUnits(total.getUnits() + next.getUnits());
+                    total.setRevenue(total.getRevenue().add(next.getRevenue()));
+                    total.setOrders(total.getOrders() + next.getOrders());
+                    return total;
+                });
+            }
+        }
+        return totals.values().stream()
+                .sorted(Comparator.comparing(SalesBreakdownRowDto::getRevenue).reversed())
+                .toList();
+    }
+
+    private Map<LocalDate, List<SalesBreakdownRowDto>> load(SalesDimension dimension, LocalDate startDate,
+                                                            LocalDate endDate) {
+        String sql = dimension == SalesDimension.CATEGORY ? BY_CATEGORY_SQL : BY_COUNTRY_SQL;
+        Map<LocalDate, List<SalesBreakdownRowDto>> loaded = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            BigDecimal revenue = rs.getBigDecimal(5);
+            loaded.computeIfAbsent(rs.getDate(1).toLocalDate(), day -> new ArrayList<>())
+                    .add(SalesBreakdownRowDto.builder()
+                            .key(rs.getString(2))
+                            .label(rs.getString(3))
+                            .units(rs.getLong(4))
+                            .revenue(revenue == null ? BigDecimal.ZERO : revenue)
+                            .orders(rs.getLong(6))
+                            .build());
+        }, Timestamp.valueOf(startDate.atStartOfDay()), Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+        return loaded;
+    }
+
+    // Cached rows are shared, totals are built on copies
+    private static SalesBreakdownRowDto copy(SalesBreakdownRowDto row) {
+        return new SalesBreakdownRowDto(row.getKey(), row.getLabel(), row.getUnits(), row.getRevenue(), row.getOrders());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.orderCreatedAt() == null) {
+            return;
+        }
+        LocalDate day = event.orderCreatedAt().toLocalDate();
+        for (SalesDimension dimension : SalesDimension.values()) {
+            if (days.remove(new DayKey(dimension, day)) != null) {
+                counters.evicted();
+            }
+        }
+    }
+
+    // Category rows carry the category name, a rename or delete leaves them stale
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        days.keySet().removeIf(key -> {
+            if (key.dimension() != SalesDimension.CATEGORY) {
+                return false;
+            }
+            counters.evicted();
+            return true;
+        });
+    }
+
+    public CacheStatsDto getStats() {
+        return counters.stats("salesBreakdown", days.size());
+    }
+
+    private record DayKey(SalesDimension dimension, LocalDate day) {
+    }
+
+    private record Entry(List<SalesBreakdownRowDto> rows, long loadedAt) {
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.ecommerce.analytics;
+
+import com.example.ecommerce.dto.TimeSeriesDto;
+import com.example.ecommerce.enums.RollupGrain;
+import com.example.ecommerce.enums.TimeSeriesBucket;
+import com.example.ecommerce.enums.TimeSeriesMetric;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Builds downsampled series for charts. Buckets are aggregated in the database, flows from the
+ * rollup rows of the chosen grain and gauges from the daily snapshots, and the result is laid
+ * out as parallel arrays over every bucket of the range, so a long range costs one small row
+ * per bucket rather than one full snapshot per day.
+ */
+@Component
+@RequiredArgsConstructor
+public class TimeSeriesAggregator {
+
+    public static final int MAX_POINTS = 5000;
+
+    private static final List<RollupGrain> AUTO_GRAINS = List.of(RollupGrain.DAY, RollupGrain.WEEK, RollupGrain.MONTH);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TimeSeriesDto getSeries(Collection<TimeSeriesMetric> metrics, LocalDate startDate, LocalDate endDate,
+                                   TimeSeriesBucket bucket, int maxPoints) {
+        RollupGrain grain = resolveGrain(bucket, startDate, endDate, maxPoints);
+        List<LocalDateTime> buckets = buckets(grain, startDate, endDate);
+        if (buckets.size() > MAX_POINTS) {
+            throw new IllegalArgumentException("Range has " + buckets.size() + " " + grain.name().toLowerCase()
+                    + " buckets, at most " + MAX_POINTS + " are allowed");
+        }
+        LocalDateTime first = buckets.get(0);
+        LocalDateTime last = buckets.get(buckets.size() - 1);
+
+        Map<TimeSeriesMetric.Source, List<TimeSeriesMetric>> bySource = metrics.stream()
+                .distinct()
+                .collect(Collectors.groupingBy(TimeSeriesMetric::getSource));
+        Map<TimeSeriesMetric, Map<LocalDateTime, Number>> found = new HashMap<>();
+        queryRollups(bySource.getOrDefault(TimeSeriesMetric.Source.ROLLUP, List.of()), grain, first, last, found);
+        querySnapshots(bySource.getOrDefault(TimeSeriesMetric.Source.SNAPSHOT, List.of()), grain, first, last, found);
+
+        Map<String, List<Number>> values = new LinkedHashMap<>();
+        for (TimeSeriesMetric metric : metrics) {
+            Map<LocalDateTime, Number> points = found.getOrDefault(metric, Map.of());
+            // A rollup bucket without a row had no activity, a missing snapshot is unknown
+            Number missing = metric.getSource() == TimeSeriesMetric.Source.ROLLUP ? 0 : null;
+            List<Number> column = new ArrayList<>(buckets.size());
+            for (LocalDateTime start : buckets) {
+                column.add(points.getOrDefault(start, missing));
+            }
+            values.put(metric.getKey(), column);
+        }
+
+        return TimeSeriesDto.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .bucket(grain)
+                .timestamps(buckets.stream().map(LocalDateTime::toLocalDate).toList())
+                .values(values)
+                .build();
+    }
+
+    private static RollupGrain resolveGrain(TimeSeriesBucket bucket, LocalDate startDate, LocalDate endDate,
+                                            int maxPoints) {
+        return switch (bucket) {
+            case DAY -> RollupGrain.DAY;
+            case WEEK -> RollupGrain.WEEK;
+            case MONTH -> RollupGrain.MONTH;
+            case AUTO -> AUTO_GRAINS.stream()
+                    .filter(grain -> buckets(grain, startDate, endDate).size() <= maxPoints)
+                    .findFirst()
+                    .orElse(RollupGrain.MONTH);
+        };
+    }
+
+    // Every bucket overlapping the range, the first one may start before startDate
+    private static List<LocalDateTime> buckets(RollupGrain grain, LocalDate startDate, LocalDate endDate) {
+        List<LocalDateTime> buckets = new ArrayList<>();
+        LocalDateTime end = endDate.atStartOfDay();
+        for (LocalDateTime start = grain.bucketStart(startDate.atStartOfDay());
+             !start.isAfter(end) && buckets.size() <= MAX_POINTS;
+             start = grain.next(start)) {
+            buckets.add(start);
+        }
+        return buckets;
+    }
+
+    private void queryRollups(List<TimeSeriesMetric> metrics, RollupGrain grain, LocalDateTime first,
+                              LocalDateTime last, Map<TimeSeriesMetric, Map<LocalDateTime, Number>> found) {
+        if (metrics.isEmpty()) {
+            return;
+        }
+        String sql = "SELECT bucket_start, " + columns(metrics) + " FROM analytics_rollups"
+                + " WHERE grain = ? AND bucket_start BETWEEN ? AND ? ORDER BY bucket_start";
+        query(sql, metrics, found, grain.name(), Timestamp.valueOf(first), Timestamp.valueOf(last));
+    }
+
+    private void querySnapshots(List<TimeSeriesMetric> metrics, RollupGrain grain, LocalDateTime first,
+                                LocalDateTime last, Map<TimeSeriesMetric, Map<LocalDateTime, Number>> found) {
+        if (metrics.isEmpty()) {
+            return;
+        }
+        String lastValues = metrics.stream()
+                .map(metric -> "(array_agg(" + metric.getColumn() + " ORDER BY analytics_date DESC))[1]")
+                .collect(Collectors.joining(", "));
+        String sql = "SELECT date_trunc(?, CAST(analytics_date AS timestamp)), " + lastValues + " FROM analytics"
+                + " WHERE analytics_date BETWEEN ? AND ? GROUP BY 1 ORDER BY 1";
+        query(sql, metrics, found, grain.getTruncUnit(), Date.valueOf(first.toLocalDate()),
+                Date.valueOf(grain.next(last).toLocalDate().minusDays(1)));
+    }
+
+    private void query(String sql, List<TimeSeriesMetric> metrics,
+                       Map<TimeSeriesMetric, Map<LocalDateTime, Number>> found, Object... args) {
+        jdbcTemplate.query(sql, rs -> {
+            LocalDateTime start = rs.getTimestamp(1).toLocalDateTime();
+            for (int i = 0; i < metrics.size(); i++) {
+                Object value = rs.getObject(i + 2);
+                if (value != null) {
+                    found.computeIfAbsent(metrics.get(i), metric -> new HashMap<>()).put(start, (Number) value);
+                }
+            }
+        }, args);
+    }
+
+    private static String columns(List<TimeSeriesMetric> metrics) {
+        return metrics.stream().map(TimeSeriesMetric::getColumn).collect(Collectors.joining(", "));
+    }
+}
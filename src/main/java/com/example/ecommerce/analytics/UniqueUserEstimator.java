@@ -0,0 +1,240 @@
+package com.example.ecommerce.analytics;
+
+import com.example.ecommerce.dto.AnalyticsDto;
+import com.example.ecommerce.entity.DailySketch;
+import com.example.ecommerce.enums.SketchMetric;
+import com.example.ecommerce.event.OrderStatusChangedEvent;
+import com.example.ecommerce.event.UserLoggedInEvent;
+import com.example.ecommerce.repository.DailySketchRepository;
+import com.example.ecommerce.service.JobService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distinct buyer and active user estimates from one HyperLogLog sketch per metric and day.
+ * Logins and new orders are recorded into in-memory sketches, which are periodically merged
+ * into daily_sketches. Any range is answered by merging the sketches of its days, so neither
+ * the recording nor the estimate ever needs a DISTINCT over orders.
+ */
+@Component
+@Slf4j
+public class UniqueUserEstimator {
+
+    // Seeding only runs on an empty table, so the registers of any row already there are replaced
+    private static final String UPSERT_SQL = """
+            INSERT INTO daily_sketches (metric, sketch_date, registers, created_at, updated_at)
+            VALUES (?, ?, ?, now(), now())
+            ON CONFLICT (metric, sketch_date) DO UPDATE SET
+                registers = EXCLUDED.registers,
+                updated_at = now()
+            """;
+
+    // An empty row first, so that there is always a row to lock, even on the first flush of a day
+    private static final String INSERT_EMPTY_SQL = """
+            INSERT INTO daily_sketches (metric, sketch_date, registers, created_at, updated_at)
+            VALUES (?, ?, ?, now(), now())
+            ON CONFLICT (metric, sketch_date) DO NOTHING
+            """;
+
+    private static final String LOCK_SQL = """
+            SELECT registers FROM daily_sketches WHERE metric = ? AND sketch_date = ? FOR UPDATE
+            """;
+
+    // Merging happens in Java under the row lock, so the stored registers are simply replaced
+    private static final String UPDATE_SQL = """
+            UPDATE daily_sketches SET registers = ?, updated_at = now() WHERE metric = ? AND sketch_date = ?
+            """;
+
+    private static final String BUYERS_SQL = "SELECT CAST(created_at AS date), user_id FROM orders";
+
+    private final DailySketchRepository dailySketchRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JobService jobService;
+
+    private final Map<SketchKey, HyperLogLog> sketches = new ConcurrentHashMap<>();
+    private final Set<SketchKey> dirty = ConcurrentHashMap.newKeySet();
+
+    public UniqueUserEstimator(DailySketchRepository dailySketchRepository,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               JobService jobService) {
+        this.dailySketchRepository = dailySketchRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jobService = jobService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedIfEmpty() {
+        jobService.runExclusively("daily-sketches-seed", Duration.ofHours(1), Duration.ZERO, () -> {
+            if (dailySketchRepository.count() == 0) {
+                seedFromOrders();
+            }
+        });
+    }
+
+    /**
+     * Builds the buyer sketches of every past day from the orders table. Logins are not stored,
+     * so the active user sketches of past days only know about the users that ordered.
+     */
+    public void seedFromOrders() {
+        long started = System.nanoTime();
+        Map<LocalDate, HyperLogLog> buyers = new HashMap<>();
+        jdbcTemplate.query(BUYERS_SQL, rs -> {
+            long userId = rs.getLong(2);
+            if (!rs.wasNull()) {
+                buyers.computeIfAbsent(rs.getDate(1).toLocalDate(), day -> new HyperLogLog()).add(userId);
+            }
+        });
+
+        List<Object[]> rows = new ArrayList<>(buyers.size() * 2);
+        buyers.forEach((day, sketch) -> {
+            byte[] registers = sketch.toBytes();
+            rows.add(new Object[]{SketchMetric.BUYERS.name(), Date.valueOf(day), registers});
+            rows.add(new Object[]{SketchMetric.ACTIVE_USERS.name(), Date.valueOf(day), registers});
+        });
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, rows));
+        log.info("Seeded daily sketches for {} days in {} ms", buyers.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserLoggedIn(UserLoggedInEvent event) {
+        if (event.userId() != null && event.loggedInAt() != null) {
+            record(SketchMetric.ACTIVE_USERS, event.loggedInAt().toLocalDate(), event.userId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.previousStatus() != null || event.userId() == null || event.orderCreatedAt() == null) {
+            return;
+        }
+        LocalDate day = event.orderCreatedAt().toLocalDate();
+        record(SketchMetric.BUYERS, day, event.userId());
+        record(SketchMetric.ACTIVE_USERS, day, event.userId());
+    }
+
+    private void record(SketchMetric metric, LocalDate day, long userId) {
+        SketchKey key = new SketchKey(metric, day);
+        if (sketches.computeIfAbsent(key, k -> new HyperLogLog()).add(userId)) {
+            dirty.add(key);
+        }
+    }
+
+    /**
+     * Merges every changed in-memory sketch into its stored row. The row is locked while
+     * merging, so several nodes can flush the same day without losing each other's users.
+     */
+    @Scheduled(fixedDelayString = "${analytics.sketches.flush-interval-ms:60000}")
+    public void flush() {
+        for (SketchKey key : List.copyOf(dirty)) {
+            dirty.remove(key);
+            HyperLogLog sketch = sketches.get(key);
+            if (sketch == null) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Date day = Date.valueOf(key.day());
+                    jdbcTemplate.update(INSERT_EMPTY_SQL, key.metric().name(), day, new HyperLogLog().toBytes());
+                    jdbcTemplate.query(LOCK_SQL, rs -> {
+                        sketch.merge(HyperLogLog.fromBytes(rs.getBytes(1)));
+                    }, key.metric().name(), day);
+                    jdbcTemplate.update(UPDATE_SQL, sketch.toBytes(), key.metric().name(), day);
+                });
+            } catch (Exception e) {
+                // Retried on the next flush
+                dirty.add(key);
+                log.error("Failed to flush {} sketch of {}: {}", key.metric(), key.day(), e.getMessage(), e);
+            }
+        }
+
+        // Only today and yesterday still receive events, older days are read from the table
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        sketches.keySet().removeIf(key -> key.day().isBefore(yesterday) && !dirty.contains(key));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Estimated distinct users of the metric over the inclusive date range.
+     */
+    public long estimate(SketchMetric metric, LocalDate startDate, LocalDate endDate) {
+        HyperLogLog union = new HyperLogLog();
+        load(metric, startDate, endDate).values().forEach(union::merge);
+        return union.estimate();
+    }
+
+    /**
+     * Fills in the distinct buyers and active users of today, this week and this month.
+     */
+    public void applyTo(AnalyticsDto analyticsDto) {
+        LocalDate today = LocalDate.now();
+        LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate monthStart = today.withDayOfMonth(1);
+        LocalDate from = weekStart.isBefore(monthStart) ? weekStart : monthStart;
+
+        Map<LocalDate, HyperLogLog> buyers = load(SketchMetric.BUYERS, from, today);
+        analyticsDto.setUniqueBuyersToday(estimateSince(buyers, today));
+        analyticsDto.setUniqueBuyersThisWeek(estimateSince(buyers, weekStart));
+        analyticsDto.setUniqueBuyersThisMonth(estimateSince(buyers, monthStart));
+
+        Map<LocalDate, HyperLogLog> active = load(SketchMetric.ACTIVE_USERS, from, today);
+        analyticsDto.setDailyActiveUsers(estimateSince(active, today));
+        analyticsDto.setWeeklyActiveUsers(estimateSince(active, weekStart));
+        analyticsDto.setMonthlyActiveUsers(estimateSince(active, monthStart));
+    }
+
+    // Stored sketches merged with the ones not flushed yet, by day
+    private Map<LocalDate, HyperLogLog> load(SketchMetric metric, LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, HyperLogLog> days = new HashMap<>();
+        for (DailySketch stored : dailySketchRepository.findByMetricAndSketchDateBetween(metric, startDate, endDate)) {
+            days.put(stored.getSketchDate(), HyperLogLog.fromBytes(stored.getRegisters()));
+        }
+        sketches.forEach((key, sketch) -> {
+            if (key.metric() == metric && !key.day().isBefore(startDate) && !key.day().isAfter(endDate)) {
+                days.computeIfAbsent(key.day(), day -> new HyperLogLog()).merge(sketch);
+            }
+        });
+        return days;
+    }
+
+    private static long estimateSince(Map<LocalDate, HyperLogLog> days, LocalDate since) {
+        HyperLogLog union = new HyperLogLog();
+        days.forEach((day, sketch) -> {
+            if (!day.isBefore(since)) {
+                union.merge(sketch);
+            }
+        });
+        return union.estimate();
+    }
+
+    private record SketchKey(SketchMetric metric, LocalDate day) {
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.ecommerce.analytics;
+
+import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.enums.PaymentStatus;
+import com.example.ecommerce.event.OrderLine;
+import com.example.ecommerce.event.OrderStatusChangedEvent;
+import com.example.ecommerce.event.PaymentStatusChangedEvent;
+import com.example.ecommerce.repository.UserStatsRepository;
+import com.example.ecommerce.service.JobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains the user_stats and user_category_stats read models. Order and payment changes
+ * are applied as additive upserts inside the transaction that made the change; a nightly
+ * rebuild recounts the sliding 30 day window and repairs the last order after deletions.
+ */
+@Component
+@Slf4j
+public class UserStatsUpdater {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO user_stats (user_id,
+                total_orders, pending_orders, confirmed_orders, shipped_orders, delivered_orders, cancelled_orders,
+                orders_last30_days, last_order_amount, last_order_date,
+                total_spent, total_payments, successful_payments, failed_payments,
+                created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, now(), now())
+            ON CONFLICT (user_id) DO UPDATE SET
+                total_orders = user_stats.total_orders + EXCLUDED.total_orders,
+                pending_orders = user_stats.pending_orders + EXCLUDED.pending_orders,
+                confirmed_orders = user_stats.confirmed_orders + EXCLUDED.confirmed_orders,
+                shipped_orders = user_stats.shipped_orders + EXCLUDED.shipped_orders,
+                delivered_orders = user_stats.delivered_orders + EXCLUDED.delivered_orders,
+                cancelled_orders = user_stats.cancelled_orders + EXCLUDED.cancelled_orders,
+                orders_last30_days = user_stats.orders_last30_days + EXCLUDED.orders_last30_days,
+                last_order_amount = CASE
+                    WHEN EXCLUDED.last_order_date IS NOT NULL
+                         AND (user_stats.last_order_date IS NULL OR EXCLUDED.last_order_date >= user_stats.last_order_date)
+                    THEN EXCLUDED.last_order_amount
+                    ELSE user_stats.last_order_amount END,
+                last_order_date = GREATEST(user_stats.last_order_date, EXCLUDED.last_order_date),
+                total_spent = user_stats.total_spent + EXCLUDED.total_spent,
+                total_payments = user_stats.total_payments + EXCLUDED.total_payments,
+                successful_payments = user_stats.successful_payments + EXCLUDED.successful_payments,
+                failed_payments = user_stats.failed_payments + EXCLUDED.failed_payments,
+                updated_at = now()
+            """;
+
+    private static final String UPSERT_CATEGORY_SQL = """
+            INSERT INTO user_category_stats (user_id, category_id, item_count, created_at, updated_at)
+            VALUES (?, ?, ?, now(), now())
+            ON CONFLICT (user_id, category_id) DO UPDATE SET
+                item_count = user_category_stats.item_count + EXCLUDED.item_count,
+                updated_at = now()
+            """;
+
+    private static final String REFRESH_FAVORITES_SQL = """
+            UPDATE user_stats SET favorite_categories = ARRAY(
+                SELECT c.name
+                FROM user_category_stats s
+                JOIN categories c ON c.id = s.category_id
+                WHERE s.user_id = user_stats.user_id AND s.item_count > 0
+                ORDER BY s.item_count DESC, c.name
+                LIMIT 3)
+            WHERE user_id = ?
+            """;
+
+    private static final String REBUILD_CATEGORIES_SQL = """
+            INSERT INTO user_category_stats (user_id, category_id, item_count, created_at, updated_at)
+            SELECT o.user_id, p.category_id, COUNT(*), now(), now()
+            FROM order_items oi
+            JOIN orders o ON o.id = oi.order_id
+            JOIN products p ON p.id = oi.product_id
+            WHERE p.category_id IS NOT NULL
+            GROUP BY o.user_id, p.category_id
+            """;
+
+    private static final String REBUILD_SQL = """
+            INSERT INTO user_stats (user_id,
+                total_orders, pending_orders, confirmed_orders, shipped_orders, delivered_orders, cancelled_orders,
+                orders_last30_days, last_order_amount, last_order_date,
+                total_spent, total_payments, successful_payments, failed_payments,
+                favorite_categories, created_at, updated_at)
+            SELECT u.id,
+                COALESCE(o.total_orders, 0), COALESCE(o.pending_orders, 0), COALESCE(o.confirmed_orders, 0),
+                COALESCE(o.shipped_orders, 0), COALESCE(o.delivered_orders, 0), COALESCE(o.cancelled_orders, 0),
+                COALESCE(o.orders_last30_days, 0), last_order.total_amount, last_order.created_at,
+                COALESCE(p.total_spent, 0), COALESCE(p.total_payments, 0),
+                COALESCE(p.successful_payments, 0), COALESCE(p.failed_payments, 0),
+                ARRAY(SELECT c.name
+                      FROM user_category_stats s
+                      JOIN categories c ON c.id = s.category_id
+                      WHERE s.user_id = u.id AND s.item_count > 0
+                      ORDER BY s.item_count DESC, c.name
+                      LIMIT 3),
+                now(), now()
+            FROM users u
+            LEFT JOIN (
+                SELECT user_id,
+                    COUNT(*) AS total_orders,
+                    COUNT(*) FILTER (WHERE status = 'PENDING') AS pending_orders,
+                    COUNT(*) FILTER (WHERE status = 'CONFIRMED') AS confirmed_orders,
+                    COUNT(*) FILTER (WHERE status = 'SHIPPED') AS shipped_orders,
+                    COUNT(*) FILTER (WHERE status = 'DELIVERED') AS delivered_orders,
+                    COUNT(*) FILTER (WHERE status = 'CANCELLED') AS cancelled_orders,
+                    COUNT(*) FILTER (WHERE created_at > ?) AS orders_last30_days
+                FROM orders
+                GROUP BY user_id
+            ) o ON o.user_id = u.id
+            LEFT JOIN LATERAL (
+                SELECT total_amount, created_at
+                FROM orders
+                WHERE user_id = u.id
+                ORDER BY created_at DESC
+                LIMIT 1
+            ) last_order ON true
+            LEFT JOIN (
+                SELECT ord.user_id,
+                    SUM(pay.amount) FILTER (WHERE pay.status = 'COMPLETED') AS total_spent,
+                    COUNT(*) AS total_payments,
+                    COUNT(*) FILTER (WHERE pay.status = 'COMPLETED') AS successful_payments,
+                    COUNT(*) FILTER (WHERE pay.status = 'FAILED') AS failed_payments
+                FROM payments pay
+                JOIN orders ord ON ord.id = pay.order_id
+                GROUP BY ord.user_id
+            ) p ON p.user_id = u.id
+            """;
+
+    private static final String JOB_NAME = "user-stats-rebuild";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserStatsRepository userStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JobService jobService;
+
+    public UserStatsUpdater(JdbcTemplate jdbcTemplate,
+                            UserStatsRepository userStatsRepository,
+                            PlatformTransactionManager transactionManager,
+                            JobService jobService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userStatsRepository = userStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jobService = jobService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(10)
+    public void rebuildIfEmpty() {
+        jobService.runExclusively(JOB_NAME, Duration.ofHours(1), Duration.ZERO, () -> {
+            if (userStatsRepository.count() == 0) {
+                rebuild();
+            }
+        });
+    }
+
+    @Scheduled(cron = "${analytics.user-stats.rebuild-cron:0 15 1 * * ?}")
+    public void scheduledRebuild() {
+        jobService.runExclusively(JOB_NAME, Duration.ofHours(1), Duration.ofMinutes(5), this::rebuild);
+    }
+
+    /**
+     * Recomputes every user_stats and user_category_stats row from the orders and payments tables.
+     */
+    public void rebuild() {
+        long started = System.nanoTime();
+        Timestamp thirtyDaysAgo = Timestamp.valueOf(LocalDateTime.now().minusDays(30));
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM user_category_stats");
+            jdbcTemplate.update("DELETE FROM user_stats");
+            jdbcTemplate.update(REBUILD_CATEGORIES_SQL);
+            jdbcTemplate.update(REBUILD_SQL, thirtyDaysAgo);
+        });
+        log.info("Rebuilt user stats in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.userId() == null) {
+            return;
+        }
+        Delta delta = new Delta();
+        int sign = 0;
+        if (event.previousStatus() == null) {
+            sign = 1;
+            delta.lastOrderDate = event.orderCreatedAt();
+            delta.lastOrderAmount = event.totalAmount();
+        } else if (event.newStatus() == null) {
+            sign = -1;
+        }
+
+        if (sign != 0) {
+            delta.totalOrders = sign;
+            if (event.orderCreatedAt() != null && event.orderCreatedAt().isAfter(LocalDateTime.now().minusDays(30))) {
+                delta.ordersLast30Days = sign;
+            }
+        }
+        if (event.previousStatus() != null) {
+            delta.orders.merge(event.previousStatus(), -1, Integer::sum);
+        }
+        if (event.newStatus() != null) {
+            delta.orders.merge(event.newStatus(), 1, Integer::sum);
+        }
+        apply(event.userId(), delta);
+
+        if (sign != 0 && event.lines() != null && !event.lines().isEmpty()) {
+            applyCategories(event.userId(), event.lines(), sign);
+        }
+    }
+
+    @EventListener
+    public void onPaymentStatusChanged(PaymentStatusChangedEvent event) {
+        if (event.userId() == null) {
+            return;
+        }
+        Delta delta = new Delta();
+        BigDecimal amount = event.amount() == null ? BigDecimal.ZERO : event.amount();
+        if (event.previousStatus() == null) {
+            delta.totalPayments = 1;
+        }
+        if (event.previousStatus() == PaymentStatus.COMPLETED) {
+            delta.successfulPayments--;
+            delta.totalSpent = delta.totalSpent.subtract(amount);
+        } else if (event.previousStatus() == PaymentStatus.FAILED) {
+            delta.failedPayments--;
+        }
+        if (event.newStatus() == PaymentStatus.COMPLETED) {
+            delta.successfulPayments++;
+            delta.totalSpent = delta.totalSpent.add(amount);
+        } else if (event.newStatus() == PaymentStatus.FAILED) {
+            delta.failedPayments++;
+        }
+        apply(event.userId(), delta);
+    }
+
+    private void apply(Long userId, Delta delta) {
+        jdbcTemplate.update(UPSERT_SQL,
+                userId,
+                delta.totalOrders,
+                delta.orders.getOrDefault(OrderStatus.PENDING, 0),
+                delta.orders.getOrDefault(OrderStatus.CONFIRMED, 0),
+                delta.orders.getOrDefault(OrderStatus.SHIPPED, 0),
+                delta.orders.getOrDefault(OrderStatus.DELIVERED, 0),
+                delta.orders.getOrDefault(OrderStatus.CANCELLED, 0),
+                delta.ordersLast30Days,
+                delta.lastOrderAmount,
+                delta.lastOrderDate != null ? Timestamp.valueOf(delta.lastOrderDate) : null,
+                delta.totalSpent,
+                delta.totalPayments,
+                delta.successfulPayments,
+                delta.failedPayments);
+    }
+
+    // Every order item counts once towards its category, as the favorite categories always have
+    private void applyCategories(Long userId, List<OrderLine> lines, int sign) {
+        Map<Long, Long> itemsByCategory = new TreeMap<>();
+        for (OrderLine line : lines) {
+            if (line.categoryId() != null) {
+                itemsByCategory.merge(line.categoryId(), (long) sign, Long::sum);
+            }
+        }
+        if (itemsByCategory.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(itemsByCategory.size());
+        itemsByCategory.forEach((categoryId, count) -> rows.add(new Object[]{userId, categoryId, count}));
+        jdbcTemplate.batchUpdate(UPSERT_CATEGORY_SQL, rows);
+        jdbcTemplate.update(REFRESH_FAVORITES_SQL, userId);
+    }
+
+    private static final class Delta {
+        private final Map<OrderStatus, Integer> orders = new EnumMap<>(OrderStatus.class);
+        private int totalOrders;
+        private int ordersLast30Days;
+        private BigDecimal lastOrderAmount;
+        private LocalDateTime lastOrderDate;
+        private BigDecimal totalSpent = BigDecimal.ZERO;
+        private int totalPayments;
+        private int successfulPayments;
+        private int failedPayments;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.ecommerce.cache;
+
+import com.example.ecommerce.dto.CacheStatsDto;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit, miss and eviction counts of one cache, cheap to update from many threads at once.
+ * The counts only ever grow, they are reported together with the current size.
+ */
+public final class CacheCounters {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    public void evicted() {
+        evictions.increment();
+    }
+
+    public void evicted(long count) {
+        evictions.add(count);
+    }
+
+    public CacheStatsDto stats(String name, long size) {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+        return CacheStatsDto.builder()
+                .name(name)
+                .size(size)
+                .hits(hitCount)
+                .misses(missCount)
+                .hitRate(lookups == 0 ? 0.0 : (double) hitCount / lookups)
+                .evictions(evictions.sum())
+                .build();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.ecommerce.cache;
+
+import com.example.ecommerce.dto.CacheStatsDto;
+import com.example.ecommerce.dto.ProductDto;
+import com.example.ecommerce.event.CategoryChangedEvent;
+import com.example.ecommerce.event.ProductChangedEvent;
+import com.example.ecommerce.mapper.ProductMapper;
+import com.example.ecommerce.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read-through cache of products by ID, bounded in size and in entry age. When full the least
+ * recently used product is dropped, and an entry older than the TTL is loaded again, so changes
+ * made outside this application show up after at most that long. Changes made here evict the
+ * product once they commit.
+ * Cached DTOs are shared, callers get their own copy.
+ */
+@Component
+public class ProductCache {
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    // Guarded by this, in access order so the first entry is the least recently used
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped by every eviction, a load that overlapped one may have read the old row and is not kept
+    private long generation;
+
+    private final CacheCounters counters = new CacheCounters();
+
+    public ProductCache(ProductRepository productRepository,
+                        ProductMapper productMapper,
+                        @Value("${cache.products.max-size:10000}") int maxSize,
+                        @Value("${cache.products.ttl:PT10M}") Duration ttl) {
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public Optional<ProductDto> get(Long id) {
+        return Optional.ofNullable(getAll(List.of(id)).get(id));
+    }
+
+    /**
+     * The products of the IDs that exist. Products that are not cached are loaded with a
+     * single query for all of them.
+     */
+    public Map<Long, ProductDto> getAll(Collection<Long> ids) {
+        Map<Long, ProductDto> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        long loadedAt = System.nanoTime();
+        long loadGeneration;
+        synchronized (this) {
+            for (Long id : new LinkedHashSet<>(ids)) {
+                Entry entry = entries.get(id);
+                if (entry != null && loadedAt - entry.loadedAt() < ttlNanos) {
+                    counters.hit();
+                    found.put(id, entry.product());
+                    continue;
+                }
+                if (entry != null) {
+                    entries.remove(id);
+                    counters.evicted();
+                }
+                counters.miss();
+                missing.add(id);
+            }
+            loadGeneration = generation;
+        }
+
+        if (!missing.isEmpty()) {
+            List<ProductDto> loaded = productRepository.findAllById(missing).stream()
+                    .map(productMapper::toDto)
+                    .toList();
+            synchronized (this) {
+                for (ProductDto product : loaded) {
+                    found.put(product.getId(), product);
+                    if (generation == loadGeneration) {
+                        entries.put(product.getId(), new Entry(product, loadedAt));
+                    }
+                }
+                trim();
+            }
+        }
+
+        Map<Long, ProductDto> result = new HashMap<>(found.size());
+        found.forEach((id, product) -> result.put(id, product.toBuilder().build()));
+        return result;
+    }
+
+    public synchronized void evict(Long id) {
+        generation++;
+        if (entries.remove(id) != null) {
+            counters.evicted();
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        counters.evicted(entries.size());
+        entries.clear();
+    }
+
+    // Stock, price and status changes all go through a product update
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        evict(event.productId());
+    }
+
+    // Deleting a category deletes its products with it
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.newName() == null) {
+            clear();
+        }
+    }
+
+    public CacheStatsDto getStats() {
+        long size;
+        synchronized (this) {
+            size = entries.size();
+        }
+        return counters.stats("products", size);
+    }
+
+    private void trim() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            counters.evicted();
+        }
+    }
+
+    private record Entry(ProductDto product, long loadedAt) {
+    }
+}
@@ -50,6 +50,7 @@ public class SecurityConfig {
                                 "/payment/khalti/callback",
                                 "/auth/**",
                                 "/products/all",
+                                "/products/suggest",
                                 "/products/{id}/related",
                                 "/products/{id}",
                                 "/analytics/products-analytics",
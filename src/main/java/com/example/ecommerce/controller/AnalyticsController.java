@@ -2,15 +2,27 @@ package com.example.ecommerce.controller;
 
 import com.example.ecommerce.dto.ApiResponse;
 import com.example.ecommerce.dto.AnalyticsDto;
+import com.example.ecommerce.dto.CacheStatsDto;
+import com.example.ecommerce.dto.FunnelDto;
+import com.example.ecommerce.dto.SalesBreakdownDto;
+import com.example.ecommerce.dto.TimeSeriesDto;
+import com.example.ecommerce.dto.UniqueUsersDto;
 import com.example.ecommerce.dto.UserAnalyticsDto;
+import com.example.ecommerce.enums.CustomerSegment;
+import com.example.ecommerce.enums.SalesDimension;
+import com.example.ecommerce.enums.TimeSeriesBucket;
 import com.example.ecommerce.service.AnalyticsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/analytics")
@@ -26,8 +38,9 @@ public class AnalyticsController {
     }
 
     @GetMapping("/products-analytics")
-    public ResponseEntity<ApiResponse<AnalyticsDto>> getProductAnalytics() {
-        AnalyticsDto analytics = analyticsService.getProductAnalytics();
+    public ResponseEntity<ApiResponse<AnalyticsDto>> getProductAnalytics(
+            @RequestParam(required = false) Integer windowDays) {
+        AnalyticsDto analytics = analyticsService.getProductAnalytics(windowDays);
         return ResponseEntity.ok(ApiResponse.success("Product analytics retrieved successfully", analytics));
     }
 
@@ -46,12 +59,100 @@ public class AnalyticsController {
         return ResponseEntity.ok(ApiResponse.success("Analytics retrieved successfully", analytics));
     }
 
+    @GetMapping("/timeseries")
+    public ResponseEntity<ApiResponse<TimeSeriesDto>> getTimeSeries(
+            @RequestParam List<String> metrics,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "AUTO") TimeSeriesBucket bucket,
+            @RequestParam(defaultValue = "200") int maxPoints) {
+        TimeSeriesDto series = analyticsService.getTimeSeries(metrics, startDate, endDate, bucket, maxPoints);
+        return ResponseEntity.ok(ApiResponse.success("Time series retrieved successfully", series));
+    }
+
+    @GetMapping("/sales-breakdown")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<SalesBreakdownDto>> getSalesBreakdown(
+            @RequestParam(defaultValue = "CATEGORY") SalesDimension dimension,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        SalesBreakdownDto breakdown = analyticsService.getSalesBreakdown(dimension, startDate, endDate);
+        return ResponseEntity.ok(ApiResponse.success("Sales breakdown retrieved successfully", breakdown));
+    }
+
+    @GetMapping("/unique-users")
+    public ResponseEntity<ApiResponse<UniqueUsersDto>> getUniqueUsers(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        UniqueUsersDto uniqueUsers = analyticsService.getUniqueUsers(startDate, endDate);
+        return ResponseEntity.ok(ApiResponse.success("Unique users estimated successfully", uniqueUsers));
+    }
+
+    @GetMapping("/funnel")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<FunnelDto>> getFunnel(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long categoryId) {
+        FunnelDto funnel = analyticsService.getFunnel(startDate, endDate, categoryId);
+        return ResponseEntity.ok(ApiResponse.success("Conversion funnel retrieved successfully", funnel));
+    }
+
+    @GetMapping("/cache-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<CacheStatsDto>>> getCacheStats() {
+        List<CacheStatsDto> stats = analyticsService.getCacheStats();
+        return ResponseEntity.ok(ApiResponse.success("Cache statistics retrieved successfully", stats));
+    }
+
     @PostMapping("/generate-daily")
     public ResponseEntity<ApiResponse<AnalyticsDto>> generateDailyAnalytics() {
         AnalyticsDto analytics = analyticsService.generateDailyAnalytics();
         return ResponseEntity.ok(ApiResponse.success("Daily analytics generated successfully", analytics));
     }
 
+    @PostMapping("/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Integer>> backfillAnalytics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        int rows = analyticsService.backfillAnalytics(startDate, endDate);
+        return ResponseEntity.ok(ApiResponse.success("Analytics backfilled for " + rows + " days", rows));
+    }
+
+    @PostMapping("/users/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<Long, UserAnalyticsDto>>> getUserAnalyticsBatch(@RequestBody List<Long> userIds) {
+        Map<Long, UserAnalyticsDto> userAnalytics = analyticsService.getUserAnalytics(userIds);
+        return ResponseEntity.ok(ApiResponse.success("User analytics retrieved successfully", userAnalytics));
+    }
+
+    @GetMapping("/users")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<Long, UserAnalyticsDto>>> getUserAnalyticsPage(
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "updatedAt") String sortBy,
+            @RequestParam(defaultValue = "false") boolean ascending) {
+        Sort sort = ascending ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+        Map<Long, UserAnalyticsDto> userAnalytics = analyticsService.getUserAnalytics(PageRequest.of(page - 1, size, sort));
+        return ResponseEntity.ok(ApiResponse.success("User analytics retrieved successfully", userAnalytics));
+    }
+
+    @GetMapping("/segments")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<CustomerSegment, Long>>> getSegmentSizes() {
+        Map<CustomerSegment, Long> segments = analyticsService.getSegmentSizes();
+        return ResponseEntity.ok(ApiResponse.success("Customer segments retrieved successfully", segments));
+    }
+
+    @PostMapping("/segments/recompute")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Integer>> segmentCustomers() {
+        int users = analyticsService.segmentCustomers();
+        return ResponseEntity.ok(ApiResponse.success("Segmented " + users + " customers", users));
+    }
+
     @GetMapping("/users/{userId}")
     public ResponseEntity<ApiResponse<UserAnalyticsDto>> getUserAnalytics(@PathVariable Long userId) {
         UserAnalyticsDto userAnalytics = analyticsService.getUserAnalytics(userId);
@@ -0,0 +1,26 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.dto.ApiResponse;
+import com.example.ecommerce.dto.JobMetricsDto;
+import com.example.ecommerce.service.JobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/jobs")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class JobController {
+
+    private final JobService jobService;
+
+    @GetMapping("/metrics")
+    public ResponseEntity<ApiResponse<List<JobMetricsDto>>> getJobMetrics() {
+        List<JobMetricsDto> metrics = jobService.getJobMetrics();
+        return ResponseEntity.ok(ApiResponse.success("Job metrics retrieved successfully", metrics));
+    }
+}
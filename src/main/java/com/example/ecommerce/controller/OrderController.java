@@ -1,11 +1,15 @@
 package com.example.ecommerce.controller;
 
 import com.example.ecommerce.dto.ApiResponse;
+import com.example.ecommerce.dto.CountedPage;
+import com.example.ecommerce.dto.CursorPage;
 import com.example.ecommerce.dto.OrderDto;
+import com.example.ecommerce.enums.CountMode;
 import com.example.ecommerce.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -27,17 +31,41 @@ public class OrderController {
     }
 
     @GetMapping("/users/{userId}")
-    public ResponseEntity<ApiResponse<Page<OrderDto>>> getOrdersByUser(@PathVariable Long userId, Pageable pageable) {
+    public ResponseEntity<ApiResponse<?>> getOrdersByUser(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "EXACT") CountMode count,
+            Pageable pageable) {
 
+        if (cursor != null) {
+            CursorPage<OrderDto> orders = orderService.scrollOrdersByUserId(
+                    userId, cursorOrder(pageable), cursor, pageable.getPageSize());
+            return ResponseEntity.ok(ApiResponse.success("Orders fetched successfully", orders));
+        }
+        if (count == CountMode.APPROXIMATE) {
+            CountedPage<OrderDto> orders = orderService.getOrdersByUserIdApproximate(userId, pageable);
+            return ResponseEntity.ok(ApiResponse.success("Orders fetched successfully", orders));
+        }
         Page<OrderDto> orders = orderService.getOrdersByUserId(userId, pageable);
         return ResponseEntity.ok(ApiResponse.success("Orders fetched successfully", orders));
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<OrderDto>>> getAllOrders(
+    public ResponseEntity<ApiResponse<?>> getAllOrders(
             @RequestParam(defaultValue = "ALL") String filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "EXACT") CountMode count,
             Pageable pageable) {
 
+        if (cursor != null) {
+            CursorPage<OrderDto> orders = orderService.scrollAllOrders(
+                    filter, cursorOrder(pageable), cursor, pageable.getPageSize());
+            return ResponseEntity.ok(ApiResponse.success("Orders fetched successfully", orders));
+        }
+        if (count == CountMode.APPROXIMATE) {
+            CountedPage<OrderDto> orders = orderService.getAllOrdersApproximate(filter, pageable);
+            return ResponseEntity.ok(ApiResponse.success("Orders fetched successfully", orders));
+        }
         Page<OrderDto> orders = orderService.getAllOrders(filter, pageable);
         return ResponseEntity.ok(ApiResponse.success("Orders fetched successfully", orders));
     }
@@ -55,4 +83,9 @@ public class OrderController {
         orderService.deleteOrder(id);
         return ResponseEntity.ok(ApiResponse.success("Order deleted successfully", null));
     }
+
+    // First requested sort, or the latest updated first as the paged listings
+    private static Sort.Order cursorOrder(Pageable pageable) {
+        return pageable.getSort().stream().findFirst().orElse(Sort.Order.desc("updatedAt"));
+    }
 }
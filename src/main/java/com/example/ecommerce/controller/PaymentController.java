@@ -4,7 +4,10 @@ import com.example.ecommerce.dto.LookupResponse;
 import com.example.ecommerce.dto.PaymentCallbackResponse;
 import com.example.ecommerce.dto.PaymentInitiateResponse;
 import com.example.ecommerce.dto.ApiResponse;
+import com.example.ecommerce.dto.CountedPage;
+import com.example.ecommerce.dto.CursorPage;
 import com.example.ecommerce.entity.Payment;
+import com.example.ecommerce.enums.CountMode;
 import com.example.ecommerce.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -56,19 +59,32 @@ public class PaymentController {
     }
 
     @GetMapping("/all")
-    public ResponseEntity<ApiResponse<Page<Payment>>> getAllPayments(
+    public ResponseEntity<ApiResponse<?>> getAllPayments(
             @RequestParam(required = false) String filter,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "updatedAt") String sortBy,
-            @RequestParam(defaultValue = "true") boolean ascending
+            @RequestParam(defaultValue = "true") boolean ascending,
+            // Present, even empty for the first page, switches to cursor pagination without totals
+            @RequestParam(required = false) String cursor,
+            // APPROXIMATE skips the exact count, the page then says whether its total is exact
+            @RequestParam(defaultValue = "EXACT") CountMode count
     ) {
+        if (cursor != null) {
+            Sort.Order order = ascending ? Sort.Order.asc(sortBy) : Sort.Order.desc(sortBy);
+            CursorPage<Payment> payments = paymentService.scrollAllPayments(filter, order, cursor, size);
+            return ResponseEntity.ok(ApiResponse.success("Payments fetched", payments));
+        }
         Pageable pageable = PageRequest.of(
                 page - 1,
                 size,
                 ascending ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending()
         );
 
+        if (count == CountMode.APPROXIMATE) {
+            CountedPage<Payment> payments = paymentService.getAllPaymentsApproximate(filter, pageable);
+            return ResponseEntity.ok(ApiResponse.success("Payments fetched", payments));
+        }
         Page<Payment> payments = paymentService.getAllPayments(filter, pageable);
         return ResponseEntity.ok(ApiResponse.success("Payments fetched", payments));
     }
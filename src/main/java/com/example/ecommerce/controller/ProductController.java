@@ -1,7 +1,12 @@
 package com.example.ecommerce.controller;
 
 import com.example.ecommerce.dto.ApiResponse;
+import com.example.ecommerce.dto.CursorPage;
 import com.example.ecommerce.dto.ProductDto;
+import com.example.ecommerce.dto.ProductSearchCriteria;
+import com.example.ecommerce.dto.ProductSearchResultDto;
+import com.example.ecommerce.dto.SuggestionDto;
+import com.example.ecommerce.enums.ProductSearchMode;
 import com.example.ecommerce.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
@@ -37,9 +42,20 @@ public class ProductController {
 
 
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<ProductDto>> getProduct(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<ProductDto>> getProduct(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "false") boolean includeStats) {
         return ResponseEntity.ok(
-                ApiResponse.success("Product fetched successfully", productService.getProductById(id))
+                ApiResponse.success("Product fetched successfully", productService.getProductById(id, includeStats))
+        );
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<SuggestionDto>>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(
+                ApiResponse.success("Suggestions retrieved successfully", productService.suggest(q, limit))
         );
     }
 
@@ -48,18 +64,51 @@ public class ProductController {
             @RequestParam("search") Optional<String> search,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "updatedAt") String sortBy,
+            // Defaults to relevance for full-text searches and to updatedAt otherwise
+            @RequestParam(required = false) String sortBy,
             @RequestParam(defaultValue = "false") boolean ascending,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
             @RequestParam(required = false) Integer minStock,
             @RequestParam(required = false) Integer maxStock,
-            @RequestParam(required = false) Boolean active
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(defaultValue = "false") boolean includeStats,
+            @RequestParam(defaultValue = "KEYWORD") ProductSearchMode mode,
+            // Adds per category, price band and stock counts, returning products and facets
+            @RequestParam(defaultValue = "false") boolean facets,
+            // Present, even empty for the first page, switches to cursor pagination without totals
+            @RequestParam(required = false) String cursor
     ) {
-        Sort sort = ascending ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+        ProductSearchCriteria criteria = ProductSearchCriteria.builder()
+                .keyword(search.orElse(null))
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minStock(minStock)
+                .maxStock(maxStock)
+                .active(active)
+                .categoryId(categoryId)
+                .build();
+        if (cursor != null) {
+            String property = sortBy != null ? sortBy : "updatedAt";
+            Sort.Order order = ascending ? Sort.Order.asc(property) : Sort.Order.desc(property);
+            CursorPage<ProductDto> products = productService.scrollProducts(criteria, order, cursor, size, includeStats);
+            return ResponseEntity.ok(
+                    ApiResponse.success("Products retrieved successfully", products)
+            );
+        }
+
+        Sort sort = sortBy == null ? Sort.unsorted()
+                : ascending ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
         Pageable pageable = PageRequest.of(page - 1, size, sort);
 
+        if (facets) {
+            ProductSearchResultDto result = productService.searchProductsWithFacets(criteria, mode, includeStats, pageable);
+            return ResponseEntity.ok(
+                    ApiResponse.success("Products retrieved successfully", result)
+            );
+        }
+
         Page<ProductDto> products = productService.searchProducts(
                 search.orElse(null),
                 minPrice,
@@ -68,6 +117,8 @@ public class ProductController {
                 maxStock,
                 active,
                 categoryId,
+                mode,
+                includeStats,
                 pageable
         );
 
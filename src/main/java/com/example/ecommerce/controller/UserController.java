@@ -5,6 +5,7 @@ import com.example.ecommerce.dto.ApiResponse;
 import com.example.ecommerce.dto.ChangePasswordDto;
 import com.example.ecommerce.dto.UpdateUserDto;
 import com.example.ecommerce.dto.UserDto;
+import com.example.ecommerce.enums.CustomerSegment;
 import com.example.ecommerce.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -52,6 +53,7 @@ public class UserController {
     @GetMapping
     public ResponseEntity<ApiResponse<?>> getAllUsers(
             @RequestParam("search") Optional<String> search,
+            @RequestParam(required = false) CustomerSegment segment,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "updatedAt") String sortBy,
@@ -63,7 +65,9 @@ public class UserController {
         Page<UserDto> users;
         String query = search.orElse(null);
 
-        if (search.isPresent() && !query.isBlank()) {
+        if (segment != null) {
+            users = userService.getUsersBySegment(segment, pageable);
+        } else if (search.isPresent() && !query.isBlank()) {
             users = userService.searchUsers(query, pageable);
         } else {
             users = userService.getAllUsers(pageable);
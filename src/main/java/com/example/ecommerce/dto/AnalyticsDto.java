@@ -9,6 +9,7 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
@@ -68,4 +69,16 @@ public class AnalyticsDto {
     private Integer refundedPayment;
 
     private LocalDate createdAt;
+
+    // Distinct user estimates from the daily HyperLogLog sketches
+    private Long uniqueBuyersToday;
+    private Long uniqueBuyersThisWeek;
+    private Long uniqueBuyersThisMonth;
+    private Long dailyActiveUsers;
+    private Long weeklyActiveUsers;
+    private Long monthlyActiveUsers;
+
+    // Per-section timing of the computation that produced this snapshot
+    private Map<String, Long> sectionLatenciesMs;
+    private List<String> incompleteSections;
 }
\ No newline at end of file
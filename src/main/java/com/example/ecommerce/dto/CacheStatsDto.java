@@ -0,0 +1,21 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheStatsDto {
+
+    private String name;
+    private Long size;
+    private Long hits;
+    private Long misses;
+    // Hits over all lookups, 0 before the first lookup
+    private Double hitRate;
+    private Long evictions;
+}
@@ -0,0 +1,17 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CategoryFacetDto {
+
+    private Long categoryId;
+    private String name;
+    private long count;
+}
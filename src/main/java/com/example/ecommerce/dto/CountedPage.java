@@ -0,0 +1,35 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of an offset paginated listing whose total may be approximate. When totalExact is
+ * false, totalElements is either the planner's row estimate or the lower bound at which
+ * counting stopped, and clients should show it as such, e.g. "10,000+".
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CountedPage<T> {
+
+    private List<T> content;
+    // Zero-based, as in the exactly counted pages
+    private int number;
+    private int size;
+    private boolean hasNext;
+    private long totalElements;
+    private int totalPages;
+    private boolean totalExact;
+
+    public <R> CountedPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CountedPage<>(content.stream().<R>map(mapper).toList(), number, size, hasNext,
+                totalElements, totalPages, totalExact);
+    }
+}
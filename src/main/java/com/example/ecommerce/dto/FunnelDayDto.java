@@ -0,0 +1,20 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FunnelDayDto {
+
+    private LocalDate date;
+    private Long cartAdds;
+    private Long ordersPlaced;
+    private Long paymentsCompleted;
+}
@@ -0,0 +1,34 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FunnelDto {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    // Null when the funnel covers every category
+    private Long categoryId;
+
+    // Stage totals over the range
+    private Long cartAdds;
+    private Long ordersPlaced;
+    private Long paymentsCompleted;
+
+    // Stage to stage conversion, as percentages
+    private BigDecimal cartToOrderRate;
+    private BigDecimal orderToPaymentRate;
+    private BigDecimal cartToPaymentRate;
+
+    private List<FunnelDayDto> days;
+}
@@ -0,0 +1,29 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class JobMetricsDto {
+
+    private String jobName;
+
+    // Counted on this node since startup
+    private Long runs;
+    private Long failures;
+    // Times the lease was held by another node
+    private Long skipped;
+
+    private Long lastDurationMs;
+    private Long averageDurationMs;
+    private Long maxDurationMs;
+    private LocalDateTime lastStartedAt;
+    private String lastError;
+}
@@ -0,0 +1,21 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceBandFacetDto {
+
+    // Inclusive
+    private BigDecimal minPrice;
+    // Exclusive, null for the open-ended top band
+    private BigDecimal maxPrice;
+    private long count;
+}
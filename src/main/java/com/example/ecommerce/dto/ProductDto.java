@@ -9,7 +9,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ProductDto {
@@ -23,5 +23,6 @@ public class ProductDto {
     private Long categoryId;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
-
+    // Only filled in when stats are requested
+    private ProductStatsDto stats;
 }
@@ -0,0 +1,26 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Counts of the products a search would return per facet value. Each facet is counted with
+ * every filter except its own, so the counts show what choosing another value would return.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductFacetsDto {
+
+    // Only categories with matching products, the largest first
+    private List<CategoryFacetDto> categories;
+    // Every band, cheapest first
+    private List<PriceBandFacetDto> priceBands;
+    private long inStock;
+    private long outOfStock;
+}
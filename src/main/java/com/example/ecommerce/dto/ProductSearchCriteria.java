@@ -0,0 +1,26 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Keyword and filters of a product search, every null field is left out.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchCriteria {
+
+    private String keyword;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer minStock;
+    private Integer maxStock;
+    private Boolean active;
+    private Long categoryId;
+}
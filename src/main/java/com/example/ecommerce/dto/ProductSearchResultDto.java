@@ -0,0 +1,18 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchResultDto {
+
+    private Page<ProductDto> products;
+    // Null when the search was not served by the in-memory index
+    private ProductFacetsDto facets;
+}
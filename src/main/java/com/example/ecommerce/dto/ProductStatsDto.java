@@ -0,0 +1,22 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductStatsDto {
+
+    private Long unitsSold;
+    private BigDecimal revenue;
+    private Long orderCount;
+    // Null when the product has never been sold
+    private LocalDateTime lastSoldAt;
+}
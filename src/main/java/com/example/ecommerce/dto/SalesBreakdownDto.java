@@ -0,0 +1,24 @@
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.enums.SalesDimension;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SalesBreakdownDto {
+
+    private SalesDimension dimension;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    // Highest revenue first
+    private List<SalesBreakdownRowDto> rows;
+}
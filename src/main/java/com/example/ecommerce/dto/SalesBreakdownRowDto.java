@@ -0,0 +1,23 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SalesBreakdownRowDto {
+
+    // Category ID or country name, null for orders without one
+    private String key;
+    private String label;
+
+    private Long units;
+    private BigDecimal revenue;
+    private Long orders;
+}
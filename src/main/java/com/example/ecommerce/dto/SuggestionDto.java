@@ -0,0 +1,19 @@
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.enums.SuggestionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SuggestionDto {
+
+    private SuggestionType type;
+    // Product or category ID, depending on the type
+    private Long id;
+    private String text;
+}
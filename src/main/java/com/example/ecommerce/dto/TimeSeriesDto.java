@@ -0,0 +1,29 @@
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.enums.RollupGrain;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A chart-ready series in column form: one start date per bucket, and per metric one value
+ * per bucket at the same index.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimeSeriesDto {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private RollupGrain bucket;
+
+    private List<LocalDate> timestamps;
+    private Map<String, List<Number>> values;
+}
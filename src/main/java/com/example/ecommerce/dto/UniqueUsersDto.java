@@ -0,0 +1,25 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UniqueUsersDto {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    // HyperLogLog estimates of distinct users over the whole range
+    private Long uniqueBuyers;
+    private Long activeUsers;
+
+    // Standard error of each estimate, as a fraction
+    private Double relativeError;
+}
@@ -0,0 +1,59 @@
+package com.example.ecommerce.entity;
+
+import com.example.ecommerce.enums.RollupGrain;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated order and payment figures for one time bucket. Orders are counted in the
+ * bucket they were created in under their current status; payment figures are bucketed by
+ * payment creation time.
+ */
+@Entity
+@Table(name = "analytics_rollups",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"grain", "bucket_start"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalyticsRollup extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupGrain grain;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    // Order analytics
+    @Column(nullable = false)
+    private Long pendingOrders;
+    @Column(nullable = false)
+    private Long confirmedOrders;
+    @Column(nullable = false)
+    private Long shippedOrders;
+    @Column(nullable = false)
+    private Long deliveredOrders;
+    @Column(nullable = false)
+    private Long cancelledOrders;
+
+    // Payment analytics
+    @Column(nullable = false)
+    private Long completedPayments;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal completedRevenue;
+
+    @Column(nullable = false)
+    private Long paymentViaKhalti;
+    @Column(nullable = false)
+    private Long paymentViaCashOnDelivery;
+}
@@ -0,0 +1,36 @@
+package com.example.ecommerce.entity;
+
+import com.example.ecommerce.enums.SketchMetric;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * HyperLogLog registers of the distinct users seen on one day for one metric. Sketches of
+ * several days are merged to estimate the distinct users of the whole range.
+ */
+@Entity
+@Table(name = "daily_sketches",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"metric", "sketch_date"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailySketch extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private SketchMetric metric;
+
+    @Column(name = "sketch_date", nullable = false)
+    private LocalDate sketchDate;
+
+    @Column(nullable = false)
+    private byte[] registers;
+}
@@ -0,0 +1,44 @@
+package com.example.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Conversion funnel counts of one day, either for one category or, with category ID 0,
+ * for all categories together. An order or payment covering several categories counts
+ * once in each of them and once in the total.
+ */
+@Entity
+@Table(name = "funnel_daily",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"funnel_date", "category_id"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FunnelDaily extends BaseEntity {
+
+    // Category ID of the row that covers every category
+    public static final long ALL_CATEGORIES = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "funnel_date", nullable = false)
+    private LocalDate funnelDate;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private Long cartAdds;
+
+    @Column(nullable = false)
+    private Long ordersPlaced;
+
+    @Column(nullable = false)
+    private Long paymentsCompleted;
+}
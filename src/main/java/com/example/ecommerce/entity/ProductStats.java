@@ -0,0 +1,37 @@
+package com.example.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Per-product sales summary, kept up to date as orders are placed, cancelled or deleted
+ * so that product pages and lists never aggregate order items. Cancelled orders do not count.
+ */
+@Entity
+@Table(name = "product_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductStats extends BaseEntity {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private Long unitsSold;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(nullable = false)
+    private Long orderCount;
+
+    // Creation time of the latest order, not moved back when that order is cancelled
+    private LocalDateTime lastSoldAt;
+}
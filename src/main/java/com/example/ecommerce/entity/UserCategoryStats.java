@@ -0,0 +1,44 @@
+package com.example.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Number of order items a user has bought per category, used to derive favorite categories.
+ */
+@Entity
+@Table(name = "user_category_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserCategoryStats extends BaseEntity {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private Long itemCount;
+
+    @Embeddable
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        @Column(name = "user_id")
+        private Long userId;
+
+        @Column(name = "category_id")
+        private Long categoryId;
+    }
+}
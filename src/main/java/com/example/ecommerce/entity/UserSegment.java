@@ -0,0 +1,43 @@
+package com.example.ecommerce.entity;
+
+import com.example.ecommerce.enums.CustomerSegment;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Latest RFM (recency, frequency, monetary) scores and segment of a user, written by the
+ * nightly segmentation job. Scores are quintiles from 1 to 5 and 0 for users without orders.
+ */
+@Entity
+@Table(name = "user_segments", indexes = @Index(name = "idx_user_segments_segment", columnList = "segment"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserSegment extends BaseEntity {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private CustomerSegment segment;
+
+    @Column(nullable = false)
+    private Integer recencyScore;
+    @Column(nullable = false)
+    private Integer frequencyScore;
+    @Column(nullable = false)
+    private Integer monetaryScore;
+
+    // Raw values the scores were derived from
+    private Integer recencyDays;
+    @Column(nullable = false)
+    private Integer orderCount;
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalSpent;
+}
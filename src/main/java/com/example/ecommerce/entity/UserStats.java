@@ -0,0 +1,58 @@
+package com.example.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Per-user order and payment summary, kept up to date as orders and payments change
+ * so that user analytics is a single primary key lookup.
+ */
+@Entity
+@Table(name = "user_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserStats extends BaseEntity {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Order summary
+    @Column(nullable = false)
+    private Integer totalOrders;
+    @Column(nullable = false)
+    private Integer pendingOrders;
+    @Column(nullable = false)
+    private Integer confirmedOrders;
+    @Column(nullable = false)
+    private Integer shippedOrders;
+    @Column(nullable = false)
+    private Integer deliveredOrders;
+    @Column(nullable = false)
+    private Integer cancelledOrders;
+    @Column(name = "orders_last30_days", nullable = false)
+    private Integer ordersLast30Days;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal lastOrderAmount;
+    private LocalDateTime lastOrderDate;
+
+    // Payment summary
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalSpent;
+    @Column(nullable = false)
+    private Integer totalPayments;
+    @Column(nullable = false)
+    private Integer successfulPayments;
+    @Column(nullable = false)
+    private Integer failedPayments;
+
+    // Top 3 category names by ordered items
+    private String[] favoriteCategories;
+}
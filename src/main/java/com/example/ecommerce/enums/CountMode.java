@@ -0,0 +1,8 @@
+package com.example.ecommerce.enums;
+
+public enum CountMode {
+    // Full COUNT(*) of the matching rows
+    EXACT,
+    // Planner row estimate when unfiltered, otherwise a count that stops at a cap
+    APPROXIMATE
+}
@@ -0,0 +1,45 @@
+package com.example.ecommerce.enums;
+
+public enum CustomerSegment {
+    CHAMPIONS("Champions"),
+    LOYAL("Loyal"),
+    NEW_CUSTOMER("New Customer"),
+    POTENTIAL_LOYALIST("Potential Loyalist"),
+    AT_RISK("At Risk"),
+    HIBERNATING("Hibernating"),
+    LOST("Lost"),
+    PROSPECT("Prospect");
+
+    // Shown as the loyalty tier in user analytics
+    private final String label;
+
+    CustomerSegment(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Maps recency, frequency and monetary quintile scores (1 to 5, higher is better) to a segment.
+     */
+    public static CustomerSegment of(int recency, int frequency, int monetary) {
+        if (recency >= 4 && frequency >= 4 && monetary >= 4) {
+            return CHAMPIONS;
+        }
+        if (recency >= 3 && frequency >= 3) {
+            return LOYAL;
+        }
+        if (recency >= 4 && frequency <= 1) {
+            return NEW_CUSTOMER;
+        }
+        if (recency >= 3) {
+            return POTENTIAL_LOYALIST;
+        }
+        if (frequency >= 3) {
+            return AT_RISK;
+        }
+        return recency == 2 ? HIBERNATING : LOST;
+    }
+}
@@ -1,8 +1,33 @@
 package com.example.ecommerce.enums;
 
+import java.time.LocalDateTime;
+
 public enum OrderFilter {
     ALL,
     LAST_WEEK,
     LAST_MONTH,
-    LAST_YEAR
+    LAST_YEAR;
+
+    // Unknown or missing filters fall back to ALL, as the order listing always has
+    public static OrderFilter from(String value) {
+        if (value == null) {
+            return ALL;
+        }
+        for (OrderFilter filter : values()) {
+            if (filter.name().equalsIgnoreCase(value)) {
+                return filter;
+            }
+        }
+        return ALL;
+    }
+
+    // Start of the created-at window, null when the filter is not time bounded
+    public LocalDateTime resolveStart(LocalDateTime now) {
+        return switch (this) {
+            case LAST_WEEK -> now.minusWeeks(1);
+            case LAST_MONTH -> now.minusMonths(1);
+            case LAST_YEAR -> now.minusYears(1);
+            case ALL -> null;
+        };
+    }
 }
@@ -0,0 +1,48 @@
+package com.example.ecommerce.enums;
+
+import java.time.LocalDateTime;
+
+public enum PaymentFilter {
+    ALL("all"),
+    TODAY("today"),
+    LAST_WEEK("lastweek"),
+    LAST_15_DAYS("15days"),
+    LAST_MONTH("lastmonth"),
+    LAST_YEAR("lastyear");
+
+    // Value accepted by the filter request parameter
+    private final String value;
+
+    PaymentFilter(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    // Unknown or missing filters fall back to ALL, as the payment listing always has
+    public static PaymentFilter from(String value) {
+        if (value == null) {
+            return ALL;
+        }
+        for (PaymentFilter filter : values()) {
+            if (filter.value.equalsIgnoreCase(value)) {
+                return filter;
+            }
+        }
+        return ALL;
+    }
+
+    // Start of the created-at window, null when the filter is not time bounded
+    public LocalDateTime resolveStart(LocalDateTime now) {
+        return switch (this) {
+            case TODAY -> now.withHour(0).withMinute(0).withSecond(0).withNano(0);
+            case LAST_WEEK -> now.minusWeeks(1);
+            case LAST_15_DAYS -> now.minusDays(15);
+            case LAST_MONTH -> now.minusMonths(1);
+            case LAST_YEAR -> now.minusYears(1);
+            case ALL -> null;
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.ecommerce.enums;
+
+public enum ProductSearchMode {
+    // Prefix word match on the in-memory search index, falls back to FULL_TEXT while it is not ready
+    KEYWORD,
+    // Case-insensitive substring match on name and description
+    CONTAINS,
+    // Stemmed word match on the indexed search vector, ranked by relevance
+    FULL_TEXT,
+    // Trigram word similarity on product and category names, tolerates misspellings
+    FUZZY
+}
@@ -0,0 +1,44 @@
+package com.example.ecommerce.enums;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+public enum RollupGrain {
+    HOUR("hour"),
+    DAY("day"),
+    WEEK("week"),
+    MONTH("month");
+
+    // Field name understood by PostgreSQL date_trunc
+    private final String truncUnit;
+
+    RollupGrain(String truncUnit) {
+        this.truncUnit = truncUnit;
+    }
+
+    public String getTruncUnit() {
+        return truncUnit;
+    }
+
+    // Same boundaries as date_trunc, weeks start on Monday
+    public LocalDateTime bucketStart(LocalDateTime time) {
+        return switch (this) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case WEEK -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        };
+    }
+
+    // Start of the bucket following the one starting at bucketStart
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        return switch (this) {
+            case HOUR -> bucketStart.plusHours(1);
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+            case MONTH -> bucketStart.plusMonths(1);
+        };
+    }
+}
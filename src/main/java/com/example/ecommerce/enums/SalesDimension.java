@@ -0,0 +1,7 @@
+package com.example.ecommerce.enums;
+
+public enum SalesDimension {
+    CATEGORY,
+    // Country of the ordering user
+    COUNTRY
+}
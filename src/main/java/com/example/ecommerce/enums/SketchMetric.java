@@ -0,0 +1,11 @@
+package com.example.ecommerce.enums;
+
+/**
+ * Distinct user populations tracked with a daily HyperLogLog sketch.
+ */
+public enum SketchMetric {
+    // Users that placed an order
+    BUYERS,
+    // Users that logged in or placed an order
+    ACTIVE_USERS
+}
@@ -0,0 +1,6 @@
+package com.example.ecommerce.enums;
+
+public enum SuggestionType {
+    PRODUCT,
+    CATEGORY
+}
@@ -0,0 +1,9 @@
+package com.example.ecommerce.enums;
+
+public enum TimeSeriesBucket {
+    DAY,
+    WEEK,
+    MONTH,
+    // Smallest bucket that keeps the series within the requested number of points
+    AUTO
+}
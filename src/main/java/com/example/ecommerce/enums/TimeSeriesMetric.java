@@ -0,0 +1,64 @@
+package com.example.ecommerce.enums;
+
+/**
+ * Metrics that /analytics/timeseries can chart. Order and payment metrics are flows summed
+ * per bucket from analytics_rollups; the others are daily snapshot gauges from the analytics
+ * table, reported as their last value within the bucket.
+ */
+public enum TimeSeriesMetric {
+    TOTAL_ORDERS("totalOrders", Source.ROLLUP,
+            "pending_orders + confirmed_orders + shipped_orders + delivered_orders + cancelled_orders"),
+    PENDING_ORDERS("pendingOrders", Source.ROLLUP, "pending_orders"),
+    CONFIRMED_ORDERS("confirmedOrders", Source.ROLLUP, "confirmed_orders"),
+    SHIPPED_ORDERS("shippedOrders", Source.ROLLUP, "shipped_orders"),
+    DELIVERED_ORDERS("deliveredOrders", Source.ROLLUP, "delivered_orders"),
+    CANCELLED_ORDERS("cancelledOrders", Source.ROLLUP, "cancelled_orders"),
+    COMPLETED_PAYMENTS("completedPayments", Source.ROLLUP, "completed_payments"),
+    REVENUE("revenue", Source.ROLLUP, "completed_revenue"),
+    PAYMENT_VIA_KHALTI("paymentViaKhalti", Source.ROLLUP, "payment_via_khalti"),
+    PAYMENT_VIA_CASH_ON_DELIVERY("paymentViaCashOnDelivery", Source.ROLLUP, "payment_via_cash_on_delivery"),
+    TOTAL_USERS("totalUsers", Source.SNAPSHOT, "total_users"),
+    ACTIVE_USERS("activeUsers", Source.SNAPSHOT, "active_users"),
+    TOTAL_PRODUCTS("totalProducts", Source.SNAPSHOT, "total_products"),
+    ACTIVE_PRODUCTS("activeProducts", Source.SNAPSHOT, "active_products"),
+    TOTAL_CATEGORIES("totalCategories", Source.SNAPSHOT, "total_categories"),
+    TOTAL_CARTS("totalCarts", Source.SNAPSHOT, "total_carts");
+
+    public enum Source {
+        ROLLUP,
+        SNAPSHOT
+    }
+
+    // Name used in requests and responses, matching the AnalyticsDto field
+    private final String key;
+    private final Source source;
+    // SQL expression over the source table, never built from user input
+    private final String column;
+
+    TimeSeriesMetric(String key, Source source, String column) {
+        this.key = key;
+        this.source = source;
+        this.column = column;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public static TimeSeriesMetric from(String value) {
+        for (TimeSeriesMetric metric : values()) {
+            if (metric.key.equalsIgnoreCase(value) || metric.name().equalsIgnoreCase(value)) {
+                return metric;
+            }
+        }
+        throw new IllegalArgumentException("Unknown time series metric: " + value);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.ecommerce.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published whenever a product is added to a cart, including adds that only raise
+ * the quantity of an item already in the cart.
+ */
+public record CartItemAddedEvent(Long userId,
+                                 Long productId,
+                                 Long categoryId,
+                                 Integer quantity,
+                                 LocalDateTime addedAt) {
+}
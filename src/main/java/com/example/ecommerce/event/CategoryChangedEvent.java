@@ -0,0 +1,9 @@
+package com.example.ecommerce.event;
+
+/**
+ * Published whenever a category is created, renamed or deleted.
+ * newName is null for a deleted category, whose products are deleted along with it.
+ */
+public record CategoryChangedEvent(Long categoryId,
+                                   String newName) {
+}
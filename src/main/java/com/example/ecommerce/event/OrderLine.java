@@ -0,0 +1,12 @@
+package com.example.ecommerce.event;
+
+import java.math.BigDecimal;
+
+/**
+ * A single order item as carried by {@link OrderStatusChangedEvent}.
+ */
+public record OrderLine(Long productId,
+                        Long categoryId,
+                        Integer quantity,
+                        BigDecimal totalPrice) {
+}
@@ -0,0 +1,21 @@
+package com.example.ecommerce.event;
+
+import com.example.ecommerce.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Published whenever an order is created, changes status or is deleted.
+ * A null previous status means the order was just created, a null new status means it was deleted.
+ * Lines always carry the items of the order.
+ */
+public record OrderStatusChangedEvent(Long orderId,
+                                      Long userId,
+                                      LocalDateTime orderCreatedAt,
+                                      OrderStatus previousStatus,
+                                      OrderStatus newStatus,
+                                      BigDecimal totalAmount,
+                                      List<OrderLine> lines) {
+}
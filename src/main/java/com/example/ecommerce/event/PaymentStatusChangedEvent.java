@@ -0,0 +1,24 @@
+package com.example.ecommerce.event;
+
+import com.example.ecommerce.enums.PaymentMethod;
+import com.example.ecommerce.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Published whenever a payment is created or changes status.
+ * A null previous status means the payment was just created.
+ * Category IDs are the distinct categories of the products in the paid order.
+ */
+public record PaymentStatusChangedEvent(Long paymentId,
+                                        Long orderId,
+                                        Long userId,
+                                        PaymentMethod method,
+                                        PaymentStatus previousStatus,
+                                        PaymentStatus newStatus,
+                                        BigDecimal amount,
+                                        LocalDateTime paymentCreatedAt,
+                                        List<Long> categoryIds) {
+}
@@ -0,0 +1,10 @@
+package com.example.ecommerce.event;
+
+/**
+ * Published whenever a product is created, updated or deleted.
+ * previousActive is null for a new product, newActive is null for a deleted one.
+ */
+public record ProductChangedEvent(Long productId,
+                                  Boolean previousActive,
+                                  Boolean newActive) {
+}
@@ -0,0 +1,15 @@
+package com.example.ecommerce.event;
+
+import com.example.ecommerce.enums.Gender;
+
+/**
+ * Published whenever a user is created, updated or deleted, carrying the analytics
+ * dimensions before and after the change. Previous values are null for a new user,
+ * new values are null for a deleted one.
+ */
+public record UserChangedEvent(Long userId,
+                               Gender previousGender,
+                               Boolean previousActive,
+                               Gender newGender,
+                               Boolean newActive) {
+}
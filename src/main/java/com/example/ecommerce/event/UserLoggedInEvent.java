@@ -0,0 +1,10 @@
+package com.example.ecommerce.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published after a user has authenticated successfully.
+ */
+public record UserLoggedInEvent(Long userId,
+                                LocalDateTime loggedInAt) {
+}
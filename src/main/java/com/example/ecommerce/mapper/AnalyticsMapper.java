@@ -14,6 +14,14 @@ public interface AnalyticsMapper {
     @Mapping(target = "newProducts", ignore = true)
     @Mapping(target = "popularProducts", ignore = true)
     @Mapping(target = "newCategories", ignore = true)
+    @Mapping(target = "sectionLatenciesMs", ignore = true)
+    @Mapping(target = "incompleteSections", ignore = true)
+    @Mapping(target = "uniqueBuyersToday", ignore = true)
+    @Mapping(target = "uniqueBuyersThisWeek", ignore = true)
+    @Mapping(target = "uniqueBuyersThisMonth", ignore = true)
+    @Mapping(target = "dailyActiveUsers", ignore = true)
+    @Mapping(target = "weeklyActiveUsers", ignore = true)
+    @Mapping(target = "monthlyActiveUsers", ignore = true)
     AnalyticsDto toDTO(Analytics analytics);
 
     @Mapping(target = "createdAt", ignore = true)
@@ -9,6 +9,7 @@ import org.mapstruct.*;
 public interface ProductMapper {
 
     @Mapping(source = "category.id", target = "categoryId")
+    @Mapping(target = "stats", ignore = true)
     ProductDto toDto(Product product);
 
     @Mapping(source = "categoryId", target = "category")
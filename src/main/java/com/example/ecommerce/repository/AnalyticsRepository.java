@@ -3,6 +3,7 @@ package com.example.ecommerce.repository;
 import com.example.ecommerce.entity.Analytics;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
 import java.util.List;
@@ -17,4 +18,7 @@ public interface AnalyticsRepository extends JpaRepository<Analytics, Long> {
     List<Analytics> findByDateRange(LocalDate startDate, LocalDate endDate);
 
     boolean existsByAnalyticsDate(LocalDate date);
+
+    @Query("SELECT a.analyticsDate FROM Analytics a WHERE a.analyticsDate BETWEEN :startDate AND :endDate")
+    List<LocalDate> findDatesBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 }
\ No newline at end of file
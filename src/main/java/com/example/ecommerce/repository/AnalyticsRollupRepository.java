@@ -0,0 +1,23 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.entity.AnalyticsRollup;
+import com.example.ecommerce.enums.RollupGrain;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface AnalyticsRollupRepository extends JpaRepository<AnalyticsRollup, Long> {
+
+    @Query("SELECT r.completedRevenue FROM AnalyticsRollup r WHERE r.grain = :grain AND r.bucketStart = :bucketStart")
+    Optional<BigDecimal> findCompletedRevenue(@Param("grain") RollupGrain grain,
+                                              @Param("bucketStart") LocalDateTime bucketStart);
+
+    List<AnalyticsRollup> findByGrainAndBucketStartBetweenOrderByBucketStart(RollupGrain grain,
+                                                                            LocalDateTime start,
+                                                                            LocalDateTime end);
+}
@@ -0,0 +1,105 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.dto.CountedPage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.Predicate;
+import org.hibernate.Session;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaCriteriaQuery;
+import org.hibernate.query.criteria.JpaDerivedRoot;
+import org.hibernate.query.criteria.JpaRoot;
+import org.hibernate.query.criteria.JpaSubQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Offset pagination without an exact COUNT(*). A page fetches one row more than asked to know
+ * whether there is a next one, the total of an unfiltered listing is the planner's estimate
+ * from pg_class, and the total of a filtered one is counted only up to a cap. Both cost the
+ * same however large the table grows, which an exact count over millions of rows does not.
+ */
+@Component
+public class ApproximatePagination {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final int countCap;
+
+    public ApproximatePagination(@Value("${pagination.approximate-count-cap:10000}") int countCap) {
+        this.countCap = countCap;
+    }
+
+    /**
+     * The requested page of the rows matching filter, which is null for the whole table.
+     * The table name is the one the entity is mapped to, used for the row estimate.
+     */
+    public <T> CountedPage<T> fetch(JpaSpecificationExecutor<T> repository,
+                                    Class<T> type,
+                                    String table,
+                                    Specification<T> filter,
+                                    Pageable pageable) {
+        Specification<T> specification = filter == null ? Specification.unrestricted() : filter;
+        Slice<T> slice = repository.findBy(specification, query -> query.slice(pageable));
+        // Rows up to the end of this page exist whatever an estimate says
+        long seen = pageable.getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+
+        long total;
+        boolean exact;
+        long estimate = filter == null ? estimatedRows(table) : -1;
+        if (estimate >= countCap) {
+            total = estimate;
+            exact = false;
+        } else {
+            // Small tables and filtered listings, counting up to the cap is cheap
+            long counted = countUpTo(type, specification, countCap);
+            exact = counted <= countCap;
+            total = exact ? counted : countCap;
+        }
+        if (total < seen) {
+            total = seen;
+            exact = exact && !slice.hasNext();
+        }
+
+        int size = pageable.getPageSize();
+        return new CountedPage<>(slice.getContent(), pageable.getPageNumber(), size, slice.hasNext(),
+                total, (int) ((total + size - 1) / size), exact);
+    }
+
+    // Planner row estimate, negative when the table was never vacuumed or analyzed
+    private long estimatedRows(String table) {
+        List<?> estimates = entityManager.createNativeQuery(
+                        "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(:table)")
+                .setParameter("table", table)
+                .getResultList();
+        Object estimate = estimates.isEmpty() ? null : estimates.get(0);
+        return estimate == null ? -1 : ((Number) estimate).longValue();
+    }
+
+    // Count over a subquery limited to cap + 1 rows, so more than cap means the cap was reached.
+    // The database stops after cap + 1 rows and returns a single number.
+    private <T> long countUpTo(Class<T> type, Specification<T> specification, int cap) {
+        HibernateCriteriaBuilder cb = entityManager.unwrap(Session.class).getCriteriaBuilder();
+        JpaCriteriaQuery<Long> query = cb.createQuery(Long.class);
+        JpaSubQuery<Tuple> matching = query.subquery(Tuple.class);
+        JpaRoot<T> root = matching.from(type);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        matching.multiselect(root.get("id").alias("id"));
+        if (predicate != null) {
+            matching.where(predicate);
+        }
+        matching.fetch(cap + 1);
+
+        JpaDerivedRoot<Tuple> rows = query.from(matching);
+        query.select(cb.count(rows.get("id")));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -2,9 +2,18 @@ package com.example.ecommerce.repository;
 
 import com.example.ecommerce.entity.Cart;
 import com.example.ecommerce.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUserId(Long userId);
@@ -12,4 +21,12 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUser(User user);
 
     boolean existsByUserId(Long userId);
+
+    @Query("SELECT c.user.id, COUNT(i), c.totalPrice FROM Cart c LEFT JOIN c.items i " +
+            "WHERE c.user.id IN :userIds GROUP BY c.user.id, c.totalPrice")
+    List<Object[]> summarizeByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.createdAt FROM Cart c WHERE c.createdAt < :end")
+    Stream<LocalDateTime> streamCreatedBefore(@Param("end") LocalDateTime end);
 }
@@ -1,15 +1,20 @@
 package com.example.ecommerce.repository;
 
 import com.example.ecommerce.entity.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
@@ -23,4 +28,8 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     // NEW: Find top 5 newest categories
     List<Category> findTop5ByOrderByCreatedAtDesc();
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.createdAt FROM Category c WHERE c.createdAt < :end")
+    Stream<LocalDateTime> streamCreatedBefore(@Param("end") LocalDateTime end);
+
 }
@@ -0,0 +1,13 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.entity.DailySketch;
+import com.example.ecommerce.enums.SketchMetric;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailySketchRepository extends JpaRepository<DailySketch, Long> {
+
+    List<DailySketch> findByMetricAndSketchDateBetween(SketchMetric metric, LocalDate start, LocalDate end);
+}
@@ -0,0 +1,14 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.entity.FunnelDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface FunnelDailyRepository extends JpaRepository<FunnelDaily, Long> {
+
+    List<FunnelDaily> findByCategoryIdAndFunnelDateBetweenOrderByFunnelDate(Long categoryId,
+                                                                         LocalDate start,
+                                                                         LocalDate end);
+}
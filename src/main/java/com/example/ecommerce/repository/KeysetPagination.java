@@ -0,0 +1,140 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.dto.CursorPage;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keyset pagination over a sort property and the ID. A page seeks past the last row of the
+ * previous one with a WHERE on (property, id) instead of an OFFSET, and fetches one row more
+ * than asked instead of counting, so every page costs the same however deep it is.
+ * The cursor is the sort and the last row's key, Base64 encoded; clients must treat it as opaque.
+ */
+public final class KeysetPagination {
+
+    public static final int MAX_SIZE = 100;
+
+    private static final String ID = "id";
+    private static final String SEPARATOR = "\n";
+
+    private KeysetPagination() {
+    }
+
+    /**
+     * The page after the cursor, or the first page for a null or empty cursor. Only properties
+     * in sortable may be used, they must be non-null columns so that every row has a key.
+     */
+    public static <T> CursorPage<T> fetch(JpaSpecificationExecutor<T> repository,
+                                          Specification<T> filter,
+                                          Sort.Order order,
+                                          Set<String> sortable,
+                                          String cursor,
+                                          int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_SIZE);
+        }
+        String property = order.getProperty();
+        if (!property.equals(ID) && !sortable.contains(property)) {
+            throw new IllegalArgumentException("Cursor pagination cannot sort by " + property
+                    + ", allowed are " + ID + " and " + sortable);
+        }
+
+        Specification<T> specification = filter == null ? Specification.unrestricted() : filter;
+        if (cursor != null && !cursor.isEmpty()) {
+            specification = specification.and(after(decode(cursor, order)));
+        }
+        Sort sort = property.equals(ID)
+                ? Sort.by(order.getDirection(), ID)
+                : Sort.by(order.getDirection(), property).and(Sort.by(order.getDirection(), ID));
+
+        List<T> rows = repository.findBy(specification, query -> query.sortBy(sort).limit(size + 1).all());
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasNext ? encode(order, content.get(content.size() - 1)) : null;
+        return new CursorPage<>(content, size, hasNext, nextCursor);
+    }
+
+    // Rows strictly after the key in the sort direction, the ID breaking ties
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Specification<T> after(Key key) {
+        return (root, query, cb) -> {
+            Path<Comparable> id = root.get(ID);
+            Long lastId = Long.valueOf(key.id());
+            if (key.property().equals(ID)) {
+                return beyond(cb, id, lastId, key.ascending());
+            }
+            Path<Comparable> path = root.get(key.property());
+            Comparable value = parse(key.value(), path.getJavaType());
+            Predicate beyondValue = beyond(cb, path, value, key.ascending());
+            Predicate sameValue = cb.and(cb.equal(path, value), beyond(cb, id, lastId, key.ascending()));
+            return cb.or(beyondValue, sameValue);
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate beyond(CriteriaBuilder cb, Expression<Comparable> path, Comparable value,
+                                    boolean ascending) {
+        return ascending ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparable parse(String value, Class<?> type) {
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value);
+        } else if (type == BigDecimal.class) {
+            return new BigDecimal(value);
+        } else if (type == Long.class || type == long.class) {
+            return Long.valueOf(value);
+        } else if (type == Integer.class || type == int.class) {
+            return Integer.valueOf(value);
+        } else if (type.isEnum()) {
+            return Enum.valueOf((Class<Enum>) type, value);
+        } else if (type == String.class) {
+            return value;
+        }
+        throw new IllegalArgumentException("Cursor pagination does not support keys of type " + type.getSimpleName());
+    }
+
+    private static String encode(Sort.Order order, Object last) {
+        var accessor = PropertyAccessorFactory.forBeanPropertyAccess(last);
+        Object value = accessor.getPropertyValue(order.getProperty());
+        Object id = accessor.getPropertyValue(ID);
+        // The value goes last, so it may contain the separator
+        String raw = String.join(SEPARATOR, order.getProperty(), order.getDirection().name(), String.valueOf(id),
+                value instanceof Enum<?> e ? e.name() : String.valueOf(value));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Key decode(String cursor, Sort.Order order) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, 4);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!parts[0].equals(order.getProperty()) || !parts[1].equals(order.getDirection().name())) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort");
+        }
+        return new Key(parts[0], order.isAscending(), parts[3], parts[2]);
+    }
+
+    private record Key(String property, boolean ascending, String value, String id) {
+    }
+}
@@ -2,10 +2,12 @@ package com.example.ecommerce.repository;
 
 import com.example.ecommerce.entity.OrderItem;
 import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.enums.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
@@ -55,10 +57,29 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
             "    SELECT oi.product.id FROM OrderItem oi " +
             "    GROUP BY oi.product.id " +
             "    ORDER BY SUM(oi.quantity) DESC " +
-            "    LIMIT 5" +
+            "    LIMIT 8" +
             ")")
     List<Product> findTop8ProductsByQuantity();
 
+    // Units sold per product, for rebuilding the product leaderboard
+    @Query("""
+       SELECT oi.product.id, SUM(oi.quantity)
+       FROM OrderItem oi
+       WHERE oi.order.status <> :excluded
+       GROUP BY oi.product.id
+       """)
+    List<Object[]> sumQuantityByProductExcludingStatus(@Param("excluded") OrderStatus excluded);
+
+    @Query("""
+       SELECT oi.product.id, o.createdAt, oi.quantity
+       FROM OrderItem oi
+       JOIN oi.order o
+       WHERE o.createdAt >= :since
+         AND o.status <> :excluded
+       """)
+    List<Object[]> findQuantitiesSinceExcludingStatus(@Param("since") LocalDateTime since,
+                                                      @Param("excluded") OrderStatus excluded);
+
     // NEW: Find order items by order ID
     List<OrderItem> findByOrderId(Long orderId);
 
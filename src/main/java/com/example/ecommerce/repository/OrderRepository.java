@@ -2,14 +2,21 @@ package com.example.ecommerce.repository;
 
 import com.example.ecommerce.entity.Order;
 import com.example.ecommerce.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
 
     Page<Order> findByCreatedAtBetweenOrderByUpdatedAtDesc(LocalDateTime start, LocalDateTime end, Pageable pageable);
 
@@ -21,4 +28,11 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> user(User user);
 
     List<Order> findByUser(User user);
+
+    @Query("SELECT o.status, COUNT(o) FROM Order o GROUP BY o.status")
+    List<Object[]> countGroupByStatus();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT o.createdAt, o.status FROM Order o WHERE o.createdAt < :end ORDER BY o.createdAt")
+    Stream<Object[]> streamStatusCreatedBefore(@Param("end") LocalDateTime end);
 }
@@ -3,19 +3,25 @@ package com.example.ecommerce.repository;
 import com.example.ecommerce.entity.Payment;
 import com.example.ecommerce.entity.User;
 import com.example.ecommerce.enums.PaymentStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface PaymentRepository extends JpaRepository<Payment, Long> {
+public interface PaymentRepository extends JpaRepository<Payment, Long>, JpaSpecificationExecutor<Payment> {
     Optional<Payment> findByTransactionId(String transactionId);
 
     Page<Payment> findAllByCreatedAtAfter(LocalDateTime start, Pageable pageable);
@@ -43,6 +49,16 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     @Query("SELECT p FROM Payment p WHERE p.order.user = :user")
     List<Payment> findByUser(@Param("user") User user);
+
+    @Query("SELECT p.method, p.status, COUNT(p) FROM Payment p GROUP BY p.method, p.status")
+    List<Object[]> countGroupByMethodAndStatus();
+
+    @Query("SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.status = :status")
+    BigDecimal sumAmountByStatus(@Param("status") PaymentStatus status);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.createdAt, p.method, p.status, p.amount FROM Payment p WHERE p.createdAt < :end ORDER BY p.createdAt")
+    Stream<Object[]> streamMethodStatusAmountCreatedBefore(@Param("end") LocalDateTime end);
 }
 
 
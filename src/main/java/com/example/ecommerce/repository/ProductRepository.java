@@ -1,20 +1,28 @@
 package com.example.ecommerce.repository;
 
 import com.example.ecommerce.entity.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductRepositoryCustom {
     Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
 
     @Query("SELECT p FROM Product p " +
@@ -22,7 +30,8 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             "OR LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     Page<Product> findByNameOrDescription(@Param("keyword") String keyword, Pageable pageable);
 
-    @Query("SELECT p FROM Product p " +
+    // Joined to product_stats so that callers can sort on sales with JpaSort.unsafe on "s"
+    @Query("SELECT p FROM Product p LEFT JOIN ProductStats s ON s.productId = p.id " +
             "WHERE (:keyword IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
             "OR LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
             "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
@@ -51,12 +60,28 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findTop8ByOrderByCreatedAtDesc();
 
     // Add this method to the repository
-    @Query("SELECT p FROM Product p WHERE p.category.id = (SELECT p2.category.id FROM Product p2 WHERE p2.id = :productId) AND p.id != :productId")
-    Page<Product> findRelatedProductsByProductId(@Param("productId") Long productId, Pageable pageable);
+    @Query("SELECT p.id FROM Product p WHERE p.category.id = (SELECT p2.category.id FROM Product p2 WHERE p2.id = :productId) AND p.id != :productId")
+    List<Long> findRelatedProductIds(@Param("productId") Long productId, Pageable pageable);
 
     // NEW: Find active products
     List<Product> findByActiveTrue();
 
     // NEW: Find inactive products
     List<Product> findByActiveFalse();
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category")
+    List<Product> findAllWithCategory();
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id = :id")
+    Optional<Product> findWithCategoryById(@Param("id") Long id);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.category.id = :categoryId")
+    List<Product> findWithCategoryByCategoryId(@Param("categoryId") Long categoryId);
+
+    @Query("SELECT p.active, COUNT(p) FROM Product p GROUP BY p.active")
+    List<Object[]> countGroupByActive();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.createdAt, p.active FROM Product p WHERE p.createdAt < :end")
+    Stream<Object[]> streamActiveCreatedBefore(@Param("end") LocalDateTime end);
 }
@@ -0,0 +1,22 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.dto.ProductSearchCriteria;
+import com.example.ecommerce.entity.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Products whose search vector matches the keyword, as a web search style query, and the
+     * filters of the criteria. Unsorted pages are ordered by relevance.
+     */
+    Page<Product> fullTextSearch(ProductSearchCriteria criteria, Pageable pageable);
+
+    /**
+     * Products whose name, or the name of their category, contains a word similar to the
+     * keyword, and that match the filters of the criteria. Unsorted pages put exact name
+     * matches first and then order by similarity.
+     */
+    Page<Product> fuzzySearch(ProductSearchCriteria criteria, Pageable pageable);
+}
@@ -0,0 +1,155 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.dto.ProductSearchCriteria;
+import com.example.ecommerce.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Native queries of {@link ProductRepository} that JPQL cannot express. The search vector
+ * is a generated column created by schema.sql and is not mapped on {@link Product}, the
+ * trigram indexes are created there as well.
+ */
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    private static final String FULL_TEXT_FROM = """
+            FROM products p
+            LEFT JOIN product_stats s ON s.product_id = p.id
+            CROSS JOIN websearch_to_tsquery('english', :keyword) tsq
+            WHERE p.search_vector @@ tsq""";
+
+    private static final String FULL_TEXT_RANK = "ts_rank(p.search_vector, tsq)";
+
+    // Each side of the union is served by its own trigram index
+    private static final String FUZZY_FROM = """
+            FROM products p
+            LEFT JOIN product_stats s ON s.product_id = p.id
+            LEFT JOIN categories c ON c.id = p.category_id
+            WHERE p.id IN (
+                SELECT id FROM products WHERE :keyword <% lower(name)
+                UNION
+                SELECT cp.id FROM products cp
+                JOIN categories cc ON cc.id = cp.category_id
+                WHERE :keyword <% lower(cc.name))""";
+
+    // Exact names, then names containing the keyword, then by closest word similarity
+    private static final String FUZZY_RANK = """
+            (CASE WHEN lower(p.name) = :keyword THEN 4 WHEN strpos(lower(p.name), :keyword) > 0 THEN 2 ELSE 0 END
+                + GREATEST(word_similarity(:keyword, lower(p.name)), word_similarity(:keyword, lower(coalesce(c.name, '')))))""";
+
+    private static final String RELEVANCE = "relevance";
+
+    // Sort properties accepted by the native queries, never sold products rank as zero
+    private static final Map<String, String> SORT_COLUMNS = Map.ofEntries(
+            Map.entry("id", "p.id"),
+            Map.entry("name", "p.name"),
+            Map.entry("price", "p.price"),
+            Map.entry("stockQuantity", "p.stock_quantity"),
+            Map.entry("active", "p.active"),
+            Map.entry("createdAt", "p.created_at"),
+            Map.entry("updatedAt", "p.updated_at"),
+            Map.entry("unitsSold", "COALESCE(s.units_sold, 0)"),
+            Map.entry("revenue", "COALESCE(s.revenue, 0)"),
+            Map.entry("orderCount", "COALESCE(s.order_count, 0)"),
+            Map.entry("lastSoldAt", "s.last_sold_at"));
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+    private final String fuzzyThreshold;
+
+    public ProductRepositoryImpl(PlatformTransactionManager transactionManager,
+                                 @Value("${search.fuzzy.similarity-threshold:0.4}") double fuzzyThreshold) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.fuzzyThreshold = Double.toString(fuzzyThreshold);
+    }
+
+    @Override
+    public Page<Product> fullTextSearch(ProductSearchCriteria criteria, Pageable pageable) {
+        return search(FULL_TEXT_FROM, FULL_TEXT_RANK, criteria.getKeyword(), criteria, pageable);
+    }
+
+    @Override
+    public Page<Product> fuzzySearch(ProductSearchCriteria criteria, Pageable pageable) {
+        String keyword = criteria.getKeyword().trim().toLowerCase(Locale.ROOT);
+        return transactionTemplate.execute(status -> {
+            // Local to this transaction, so pooled connections keep the default
+            entityManager.createNativeQuery("SELECT set_config('pg_trgm.word_similarity_threshold', :threshold, true)")
+                    .setParameter("threshold", fuzzyThreshold)
+                    .getSingleResult();
+            return search(FUZZY_FROM, FUZZY_RANK, keyword, criteria, pageable);
+        });
+    }
+
+    private Page<Product> search(String baseFrom, String rank, String keyword, ProductSearchCriteria criteria,
+                                 Pageable pageable) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        StringBuilder from = new StringBuilder(baseFrom);
+        params.put("keyword", keyword);
+        appendFilters(from, params, criteria);
+
+        Query select = entityManager.createNativeQuery(
+                "SELECT p.* " + from + orderBy(pageable.getSort(), rank), Product.class);
+        params.forEach(select::setParameter);
+        if (pageable.isPaged()) {
+            select.setFirstResult((int) pageable.getOffset());
+            select.setMaxResults(pageable.getPageSize());
+        }
+        @SuppressWarnings("unchecked")
+        List<Product> content = select.getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            Query count = entityManager.createNativeQuery("SELECT COUNT(*) " + from);
+            params.forEach(count::setParameter);
+            return ((Number) count.getSingleResult()).longValue();
+        });
+    }
+
+    private static void appendFilters(StringBuilder sql, Map<String, Object> params, ProductSearchCriteria criteria) {
+        appendFilter(sql, params, "p.price >= :minPrice", "minPrice", criteria.getMinPrice());
+        appendFilter(sql, params, "p.price <= :maxPrice", "maxPrice", criteria.getMaxPrice());
+        appendFilter(sql, params, "p.stock_quantity >= :minStock", "minStock", criteria.getMinStock());
+        appendFilter(sql, params, "p.stock_quantity <= :maxStock", "maxStock", criteria.getMaxStock());
+        appendFilter(sql, params, "p.active = :active", "active", criteria.getActive());
+        appendFilter(sql, params, "p.category_id = :categoryId", "categoryId", criteria.getCategoryId());
+    }
+
+    private static void appendFilter(StringBuilder sql, Map<String, Object> params, String condition,
+                                     String name, Object value) {
+        if (value != null) {
+            sql.append(" AND ").append(condition);
+            params.put(name, value);
+        }
+    }
+
+    // The ID always breaks ties, so pages do not overlap when ranks are equal
+    private static String orderBy(Sort sort, String rank) {
+        if (sort.isUnsorted()) {
+            return " ORDER BY " + rank + " DESC, p.id";
+        }
+        StringBuilder orderBy = new StringBuilder(" ORDER BY ");
+        for (Sort.Order order : sort) {
+            String column = order.getProperty().equals(RELEVANCE) ? rank : SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("Cannot sort products by " + order.getProperty());
+            }
+            orderBy.append(column).append(order.isAscending() ? " ASC" : " DESC").append(", ");
+        }
+        return orderBy.append("p.id").toString();
+    }
+}
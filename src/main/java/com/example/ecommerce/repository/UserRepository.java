@@ -1,14 +1,21 @@
 package com.example.ecommerce.repository;
 
 import com.example.ecommerce.entity.User;
+import com.example.ecommerce.enums.CustomerSegment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User,Long> {
@@ -33,6 +40,9 @@ public interface UserRepository extends JpaRepository<User,Long> {
        """)
     Page<User> searchUsers(@Param("search") String search, Pageable pageable);
 
+    @Query("SELECT u FROM User u WHERE u.id IN (SELECT s.userId FROM UserSegment s WHERE s.segment = :segment)")
+    Page<User> findBySegment(@Param("segment") CustomerSegment segment, Pageable pageable);
+
     @Query("SELECT u FROM User u WHERE u.username = :identifier OR u.email = :identifier")
     Optional<User> findByUsernameOrEmail(@Param("identifier") String identifier);
 
@@ -40,4 +50,22 @@ public interface UserRepository extends JpaRepository<User,Long> {
     Optional<User> getUserByUsername(@Param("username") String username);
 
     boolean findUserById(Long id);
+
+    @Query("SELECT u.gender, u.isActive, COUNT(u) FROM User u GROUP BY u.gender, u.isActive")
+    List<Object[]> countGroupByGenderAndActive();
+
+    // Account age buckets; each boundary is the first instant that is too recent for the bucket
+    @Query("""
+       SELECT SUM(CASE WHEN u.createdAt < :tenYears AND u.createdAt >= :twentyYears THEN 1 ELSE 0 END),
+              SUM(CASE WHEN u.createdAt < :twentyYears AND u.createdAt >= :thirtyYears THEN 1 ELSE 0 END),
+              SUM(CASE WHEN u.createdAt < :thirtyYears THEN 1 ELSE 0 END)
+       FROM User u
+       """)
+    List<Object[]> countByAccountAgeBuckets(@Param("tenYears") LocalDateTime tenYears,
+                                            @Param("twentyYears") LocalDateTime twentyYears,
+                                            @Param("thirtyYears") LocalDateTime thirtyYears);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.createdAt, u.gender, u.isActive FROM User u WHERE u.createdAt < :end")
+    Stream<Object[]> streamGenderActiveCreatedBefore(@Param("end") LocalDateTime end);
 }
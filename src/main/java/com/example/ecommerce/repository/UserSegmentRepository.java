@@ -0,0 +1,13 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.entity.UserSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface UserSegmentRepository extends JpaRepository<UserSegment, Long> {
+
+    @Query("SELECT s.segment, COUNT(s) FROM UserSegment s GROUP BY s.segment")
+    List<Object[]> countGroupBySegment();
+}
@@ -0,0 +1,17 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.entity.UserStats;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.stream.Stream;
+
+public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT s.userId, s.lastOrderDate, s.totalOrders, s.totalSpent FROM UserStats s")
+    Stream<Object[]> streamRfmInputs();
+}
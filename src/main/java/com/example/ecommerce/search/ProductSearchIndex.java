@@ -0,0 +1,540 @@
+package com.example.ecommerce.search;
+
+import com.example.ecommerce.dto.CategoryFacetDto;
+import com.example.ecommerce.dto.PriceBandFacetDto;
+import com.example.ecommerce.dto.ProductDto;
+import com.example.ecommerce.dto.ProductFacetsDto;
+import com.example.ecommerce.dto.ProductSearchCriteria;
+import com.example.ecommerce.dto.ProductSearchResultDto;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.event.CategoryChangedEvent;
+import com.example.ecommerce.event.ProductChangedEvent;
+import com.example.ecommerce.mapper.ProductMapper;
+import com.example.ecommerce.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory inverted index over product names, descriptions and category names, so keyword
+ * and filter searches never reach the database. Every product gets a dense document number,
+ * each token maps to the bitmap of the documents containing it, category and active status
+ * are bitmaps too, and price and stock are checked on the remaining candidates. Query tokens
+ * match indexed tokens by prefix, so a partly typed word already finds its products.
+ * Price bands and stock are bitmaps as well, so the facet counts of a search are
+ * cardinalities of bitmap intersections instead of GROUP BY queries.
+ * The index is built at startup and kept current from product and category events. It is
+ * rebuilt periodically as well, which picks up changes made on other nodes or directly in the
+ * database and compacts the document numbers of deleted products.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final Comparator<ProductDto> BY_ID =
+            Comparator.comparing(ProductDto::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    // Sort properties the index can order by, relevance is handled separately
+    private static final Map<String, Comparator<ProductDto>> SORTS = Map.of(
+            "id", BY_ID,
+            "name", nullsLast(ProductDto::getName),
+            "price", nullsLast(ProductDto::getPrice),
+            "stockQuantity", nullsLast(ProductDto::getStockQuantity),
+            "active", nullsLast(ProductDto::getActive),
+            "createdAt", nullsLast(ProductDto::getCreatedAt),
+            "updatedAt", nullsLast(ProductDto::getUpdatedAt));
+
+    private static final String RELEVANCE = "relevance";
+
+    // Lower bounds of the price bands after the first, which starts at zero
+    private static final List<BigDecimal> PRICE_BOUNDS = List.of(
+            new BigDecimal("500"), new BigDecimal("1000"), new BigDecimal("2500"),
+            new BigDecimal("5000"), new BigDecimal("10000"));
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private Segment segment = new Segment();
+    private Set<Long> changedDuringRebuild;
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${search.index.rebuild-interval-ms:600000}",
+            initialDelayString = "${search.index.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Segment rebuilt = new Segment();
+        try {
+            for (Product product : productRepository.findAllWithCategory()) {
+                rebuilt.put(toDocument(product));
+            }
+        } catch (Exception e) {
+            log.error("Failed to rebuild product search index: {}", e.getMessage(), e);
+            rebuilt = null;
+        }
+
+        Set<Long> changed;
+        lock.writeLock().lock();
+        try {
+            changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+            if (rebuilt != null) {
+                segment = rebuilt;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (rebuilt == null) {
+            return;
+        }
+        // Products changed while loading may have been read before their change
+        changed.forEach(this::reindex);
+        ready = true;
+        log.info("Built product search index for {} products and {} tokens in {} ms", rebuilt.byProduct.size(),
+                rebuilt.postings.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Whether the index can order by every property of the sort.
+     */
+    public boolean canSort(Sort sort) {
+        return sort.stream().allMatch(order -> SORTS.containsKey(order.getProperty())
+                || order.getProperty().equals(RELEVANCE));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.newActive() == null) {
+            write(current -> current.remove(event.productId()), event.productId());
+        } else {
+            reindex(event.productId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            BitSet categoryDocs = segment.byCategory.get(event.categoryId());
+            if (categoryDocs == null) {
+                return;
+            }
+            BitSet docs = (BitSet) categoryDocs.clone();
+            for (int doc = docs.nextSetBit(0); doc >= 0; doc = docs.nextSetBit(doc + 1)) {
+                Document document = segment.documents.get(doc);
+                if (changedDuringRebuild != null) {
+                    changedDuringRebuild.add(document.product().getId());
+                }
+                if (event.newName() == null) {
+                    segment.remove(document.product().getId());
+                } else {
+                    segment.put(new Document(document.product(), event.newName()));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reindex(Long productId) {
+        Document document = productRepository.findWithCategoryById(productId)
+                .map(this::toDocument)
+                .orElse(null);
+        write(current -> {
+            if (document == null) {
+                current.remove(productId);
+            } else {
+                current.put(document);
+            }
+        }, productId);
+    }
+
+    private void write(Consumer<Segment> change, Long productId) {
+        lock.writeLock().lock();
+        try {
+            change.accept(segment);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(productId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Document toDocument(Product product) {
+        return new Document(productMapper.toDto(product),
+                product.getCategory() != null ? product.getCategory().getName() : null);
+    }
+
+    /**
+     * Products matching every keyword token and every filter of the criteria. Unsorted pages
+     * are ordered by relevance when there is a keyword and by the latest update otherwise.
+     */
+    public Page<ProductDto> search(ProductSearchCriteria criteria, Pageable pageable) {
+        return search(criteria, pageable, false).getProducts();
+    }
+
+    /**
+     * The same search together with its facet counts.
+     */
+    public ProductSearchResultDto searchWithFacets(ProductSearchCriteria criteria, Pageable pageable) {
+        return search(criteria, pageable, true);
+    }
+
+    private ProductSearchResultDto search(ProductSearchCriteria criteria, Pageable pageable, boolean withFacets) {
+        List<String> queryTokens = new ArrayList<>(new LinkedHashSet<>(SearchTokenizer.tokenize(criteria.getKeyword())));
+        List<Hit> hits = new ArrayList<>();
+        ProductFacetsDto facets = null;
+
+        lock.readLock().lock();
+        try {
+            BitSet candidates = segment.match(queryTokens);
+            if (criteria.getActive() != null) {
+                if (criteria.getActive()) {
+                    candidates.and(segment.activeDocs);
+                } else {
+                    candidates.andNot(segment.activeDocs);
+                }
+            }
+
+            // The remaining filters as bitmaps, null when not set, kept apart for the facet counts
+            BitSet category = criteria.getCategoryId() == null ? null
+                    : segment.byCategory.getOrDefault(criteria.getCategoryId(), new BitSet());
+            BitSet price = criteria.getMinPrice() != null || criteria.getMaxPrice() != null ? new BitSet() : null;
+            BitSet stock = criteria.getMinStock() != null || criteria.getMaxStock() != null ? new BitSet() : null;
+            if (price != null || stock != null) {
+                // Facets count other categories too, a plain search only needs the chosen one
+                BitSet checked = withFacets ? candidates : intersect(candidates, category);
+                for (int doc = checked.nextSetBit(0); doc >= 0; doc = checked.nextSetBit(doc + 1)) {
+                    Document document = segment.documents.get(doc);
+                    if (price != null && document.matchesPrice(criteria)) {
+                        price.set(doc);
+                    }
+                    if (stock != null && document.matchesStock(criteria)) {
+                        stock.set(doc);
+                    }
+                }
+            }
+
+            BitSet matched = intersect(candidates, category, price, stock);
+            for (int doc = matched.nextSetBit(0); doc >= 0; doc = matched.nextSetBit(doc + 1)) {
+                Document document = segment.documents.get(doc);
+                hits.add(new Hit(document.product(), document.score(queryTokens)));
+            }
+            if (withFacets) {
+                facets = segment.facets(candidates, category, price, stock);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.sort(comparator(pageable.getSort(), !queryTokens.isEmpty()));
+        int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), hits.size()) : 0;
+        int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), hits.size()) : hits.size();
+        List<ProductDto> content = hits.subList(from, to).stream()
+                .map(hit -> copy(hit.product()))
+                .toList();
+        return new ProductSearchResultDto(new PageImpl<>(content, pageable, hits.size()), facets);
+    }
+
+    // A fresh bitmap of the documents in all of the bitmaps, null ones are skipped
+    private static BitSet intersect(BitSet docs, BitSet... filters) {
+        BitSet result = (BitSet) docs.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    // Index of the band the price falls in, -1 for products without a price
+    private static int priceBand(BigDecimal price) {
+        if (price == null) {
+            return -1;
+        }
+        int band = 0;
+        while (band < PRICE_BOUNDS.size() && price.compareTo(PRICE_BOUNDS.get(band)) >= 0) {
+            band++;
+        }
+        return band;
+    }
+
+    private static Comparator<Hit> comparator(Sort sort, boolean hasKeyword) {
+        Comparator<Hit> byRelevance = Comparator.comparingInt(Hit::score).reversed();
+        if (sort.isUnsorted()) {
+            Comparator<Hit> byUpdated = Comparator.comparing(Hit::product, SORTS.get("updatedAt").reversed());
+            return (hasKeyword ? byRelevance.thenComparing(byUpdated) : byUpdated)
+                    .thenComparing(Hit::product, BY_ID);
+        }
+        Comparator<Hit> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Hit> next;
+            if (order.getProperty().equals(RELEVANCE)) {
+                next = order.isAscending() ? byRelevance.reversed() : byRelevance;
+            } else {
+                Comparator<ProductDto> property = SORTS.get(order.getProperty());
+                next = Comparator.comparing(Hit::product, order.isAscending() ? property : property.reversed());
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator.thenComparing(Hit::product, BY_ID);
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<ProductDto> nullsLast(Function<ProductDto, T> key) {
+        return Comparator.comparing(key, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    // Indexed DTOs are shared, callers get their own copy
+    private static ProductDto copy(ProductDto product) {
+        return ProductDto.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .stockQuantity(product.getStockQuantity())
+                .active(product.getActive())
+                .imageUrl(product.getImageUrl())
+                .categoryId(product.getCategoryId())
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * Postings and filter bitmaps over document numbers. Numbers of deleted products are not
+     * reused, the next rebuild compacts them.
+     */
+    private static final class Segment {
+        private final List<Document> documents = new ArrayList<>();
+        private final Map<Long, Integer> byProduct = new HashMap<>();
+        private final NavigableMap<String, BitSet> postings = new TreeMap<>();
+        private final Map<Long, BitSet> byCategory = new HashMap<>();
+        private final BitSet liveDocs = new BitSet();
+        private final BitSet activeDocs = new BitSet();
+        private final List<BitSet> byPriceBand = IntStream.rangeClosed(0, PRICE_BOUNDS.size())
+                .mapToObj(band -> new BitSet())
+                .toList();
+        private final BitSet inStockDocs = new BitSet();
+
+        void put(Document document) {
+            Long productId = document.product().getId();
+            Integer existing = byProduct.get(productId);
+            int doc;
+            if (existing != null) {
+                unlink(existing);
+                doc = existing;
+                documents.set(doc, document);
+            } else {
+                doc = documents.size();
+                documents.add(document);
+                byProduct.put(productId, doc);
+            }
+
+            for (String token : document.tokens()) {
+                postings.computeIfAbsent(token, t -> new BitSet()).set(doc);
+            }
+            if (document.product().getCategoryId() != null) {
+                byCategory.computeIfAbsent(document.product().getCategoryId(), id -> new BitSet()).set(doc);
+            }
+            liveDocs.set(doc);
+            activeDocs.set(doc, Boolean.TRUE.equals(document.product().getActive()));
+            int band = priceBand(document.product().getPrice());
+            if (band >= 0) {
+                byPriceBand.get(band).set(doc);
+            }
+            Integer stockQuantity = document.product().getStockQuantity();
+            inStockDocs.set(doc, stockQuantity != null && stockQuantity > 0);
+        }
+
+        void remove(Long productId) {
+            Integer doc = byProduct.remove(productId);
+            if (doc != null) {
+                unlink(doc);
+                documents.set(doc, null);
+            }
+        }
+
+        // Clears the document from every bitmap, dropping postings that become empty
+        private void unlink(int doc) {
+            Document document = documents.get(doc);
+            for (String token : document.tokens()) {
+                BitSet docs = postings.get(token);
+                if (docs != null) {
+                    docs.clear(doc);
+                    if (docs.isEmpty()) {
+                        postings.remove(token);
+                    }
+                }
+            }
+            Long categoryId = document.product().getCategoryId();
+            if (categoryId != null && byCategory.containsKey(categoryId)) {
+                BitSet docs = byCategory.get(categoryId);
+                docs.clear(doc);
+                if (docs.isEmpty()) {
+                    byCategory.remove(categoryId);
+                }
+            }
+            liveDocs.clear(doc);
+            activeDocs.clear(doc);
+            int band = priceBand(document.product().getPrice());
+            if (band >= 0) {
+                byPriceBand.get(band).clear(doc);
+            }
+            inStockDocs.clear(doc);
+        }
+
+        // Each facet is counted over the candidates and every filter but its own
+        ProductFacetsDto facets(BitSet candidates, BitSet category, BitSet price, BitSet stock) {
+            BitSet categoryScope = intersect(candidates, price, stock);
+            List<CategoryFacetDto> categories = new ArrayList<>();
+            byCategory.forEach((categoryId, docs) -> {
+                int count = intersect(categoryScope, docs).cardinality();
+                if (count > 0) {
+                    String name = documents.get(docs.nextSetBit(0)).categoryName();
+                    categories.add(new CategoryFacetDto(categoryId, name, count));
+                }
+            });
+            categories.sort(Comparator.comparingLong(CategoryFacetDto::getCount).reversed()
+                    .thenComparing(CategoryFacetDto::getName, Comparator.nullsLast(Comparator.naturalOrder())));
+
+            BitSet priceScope = intersect(candidates, category, stock);
+            List<PriceBandFacetDto> priceBands = new ArrayList<>(byPriceBand.size());
+            for (int band = 0; band < byPriceBand.size(); band++) {
+                priceBands.add(new PriceBandFacetDto(
+                        band == 0 ? BigDecimal.ZERO : PRICE_BOUNDS.get(band - 1),
+                        band < PRICE_BOUNDS.size() ? PRICE_BOUNDS.get(band) : null,
+                        intersect(priceScope, byPriceBand.get(band)).cardinality()));
+            }
+
+            BitSet stockScope = intersect(candidates, category, price);
+            int inStock = intersect(stockScope, inStockDocs).cardinality();
+            return new ProductFacetsDto(categories, priceBands, inStock, stockScope.cardinality() - inStock);
+        }
+
+        // A fresh bitmap of the documents having every query token as a prefix of one of their tokens
+        BitSet match(List<String> queryTokens) {
+            BitSet result = (BitSet) liveDocs.clone();
+            for (String queryToken : queryTokens) {
+                BitSet tokenDocs = new BitSet();
+                for (BitSet docs : postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false).values()) {
+                    tokenDocs.or(docs);
+                }
+                result.and(tokenDocs);
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result;
+        }
+    }
+
+    private record Document(ProductDto product,
+                            String categoryName,
+                            Set<String> nameTokens,
+                            Set<String> descriptionTokens,
+                            Set<String> categoryTokens) {
+
+        Document(ProductDto product, String categoryName) {
+            this(product,
+                    categoryName,
+                    Set.copyOf(SearchTokenizer.tokenize(product.getName())),
+                    Set.copyOf(SearchTokenizer.tokenize(product.getDescription())),
+                    Set.copyOf(SearchTokenizer.tokenize(categoryName)));
+        }
+
+        Set<String> tokens() {
+            Set<String> tokens = new HashSet<>(nameTokens);
+            tokens.addAll(descriptionTokens);
+            tokens.addAll(categoryTokens);
+            return tokens;
+        }
+
+        boolean matchesPrice(ProductSearchCriteria criteria) {
+            if (criteria.getMinPrice() != null
+                    && (product.getPrice() == null || product.getPrice().compareTo(criteria.getMinPrice()) < 0)) {
+                return false;
+            }
+            return criteria.getMaxPrice() == null
+                    || (product.getPrice() != null && product.getPrice().compareTo(criteria.getMaxPrice()) <= 0);
+        }
+
+        boolean matchesStock(ProductSearchCriteria criteria) {
+            if (criteria.getMinStock() != null
+                    && (product.getStockQuantity() == null || product.getStockQuantity() < criteria.getMinStock())) {
+                return false;
+            }
+            return criteria.getMaxStock() == null
+                    || (product.getStockQuantity() != null && product.getStockQuantity() <= criteria.getMaxStock());
+        }
+
+        // Name matches weigh most and whole words count double
+        int score(List<String> queryTokens) {
+            int score = 0;
+            for (String queryToken : queryTokens) {
+                score += fieldScore(nameTokens, queryToken, 3)
+                        + fieldScore(categoryTokens, queryToken, 2)
+                        + fieldScore(descriptionTokens, queryToken, 1);
+            }
+            return score;
+        }
+
+        private static int fieldScore(Set<String> tokens, String queryToken, int weight) {
+            if (tokens.contains(queryToken)) {
+                return weight * 2;
+            }
+            for (String token : tokens) {
+                if (token.startsWith(queryToken)) {
+                    return weight;
+                }
+            }
+            return 0;
+        }
+    }
+
+    private record Hit(ProductDto product, int score) {
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.ecommerce.search;
+
+import com.example.ecommerce.dto.SuggestionDto;
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.entity.ProductStats;
+import com.example.ecommerce.enums.SuggestionType;
+import com.example.ecommerce.event.CategoryChangedEvent;
+import com.example.ecommerce.event.ProductChangedEvent;
+import com.example.ecommerce.repository.CategoryRepository;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.repository.ProductStatsRepository;
+import com.example.ecommerce.search.SuggestionTrie.Suggestion;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Search-as-you-type completions of product and category names from an in-memory radix trie.
+ * A name is reachable from the start of each of its words, products rank by units sold and
+ * categories by the units sold of their products. Product and category changes are applied
+ * to the trie one key at a time, and the whole trie is rebuilt periodically to pick up sales.
+ * Inactive products are never suggested.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSuggester {
+
+    public static final int MAX_RESULTS = 10;
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductStatsRepository productStatsRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Replaced or changed under the write lock, changes are serialized by synchronized writers
+    private SuggestionTrie trie = new SuggestionTrie(MAX_RESULTS);
+    private Map<Suggestion.Key, Suggestion> indexed = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${search.suggest.refresh-interval-ms:600000}",
+            initialDelayString = "${search.suggest.refresh-interval-ms:600000}")
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        SuggestionTrie rebuilt = new SuggestionTrie(MAX_RESULTS);
+        Map<Suggestion.Key, Suggestion> rebuiltIndexed = new HashMap<>();
+        try {
+            Map<Long, Long> unitsByProduct = new HashMap<>();
+            for (ProductStats stats : productStatsRepository.findAll()) {
+                unitsByProduct.put(stats.getProductId(), stats.getUnitsSold());
+            }
+
+            Map<Long, Long> unitsByCategory = new HashMap<>();
+            for (Product product : productRepository.findAllWithCategory()) {
+                if (!Boolean.TRUE.equals(product.getActive())) {
+                    continue;
+                }
+                long units = Math.max(0, unitsByProduct.getOrDefault(product.getId(), 0L));
+                add(rebuilt, rebuiltIndexed,
+                        new Suggestion(SuggestionType.PRODUCT, product.getId(), product.getName(), units));
+                if (product.getCategory() != null) {
+                    unitsByCategory.merge(product.getCategory().getId(), units, Long::sum);
+                }
+            }
+            for (Category category : categoryRepository.findAll()) {
+                add(rebuilt, rebuiltIndexed, new Suggestion(SuggestionType.CATEGORY, category.getId(),
+                        category.getName(), unitsByCategory.getOrDefault(category.getId(), 0L)));
+            }
+        } catch (Exception e) {
+            log.error("Failed to rebuild product suggestions: {}", e.getMessage(), e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            trie = rebuilt;
+            indexed = rebuiltIndexed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Built product suggestions for {} names in {} ms", rebuiltIndexed.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Best completions of the query, which may end in a partly typed word.
+     */
+    public List<SuggestionDto> suggest(String query, int limit) {
+        if (limit < 1 || limit > MAX_RESULTS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_RESULTS);
+        }
+        String prefix = String.join(" ", SearchTokenizer.tokenize(query));
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+
+        List<Suggestion> completions;
+        lock.readLock().lock();
+        try {
+            completions = trie.complete(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return completions.stream()
+                .map(suggestion -> new SuggestionDto(suggestion.type(), suggestion.id(), suggestion.text()))
+                .toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        Suggestion replacement = null;
+        if (Boolean.TRUE.equals(event.newActive())) {
+            Product product = productRepository.findById(event.productId()).orElse(null);
+            if (product != null) {
+                long units = productStatsRepository.findById(event.productId())
+                        .map(ProductStats::getUnitsSold)
+                        .orElse(0L);
+                replacement = new Suggestion(SuggestionType.PRODUCT, product.getId(), product.getName(),
+                        Math.max(0, units));
+            }
+        }
+        replace(new Suggestion.Key(SuggestionType.PRODUCT, event.productId()), replacement);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCategoryChanged(CategoryChangedEvent event) {
+        Suggestion.Key key = new Suggestion.Key(SuggestionType.CATEGORY, event.categoryId());
+        Suggestion replacement = null;
+        if (event.newName() != null) {
+            // Sales of the category are only recounted by the next rebuild
+            Suggestion current = indexed.get(key);
+            replacement = new Suggestion(SuggestionType.CATEGORY, event.categoryId(), event.newName(),
+                    current != null ? current.weight() : 0L);
+        }
+        replace(key, replacement);
+    }
+
+    private void replace(Suggestion.Key key, Suggestion replacement) {
+        lock.writeLock().lock();
+        try {
+            Suggestion current = indexed.remove(key);
+            if (current != null) {
+                for (String trieKey : keys(current.text())) {
+                    trie.remove(trieKey, key);
+                }
+            }
+            if (replacement != null) {
+                add(trie, indexed, replacement);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void add(SuggestionTrie trie, Map<Suggestion.Key, Suggestion> indexed, Suggestion suggestion) {
+        List<String> keys = keys(suggestion.text());
+        if (keys.isEmpty()) {
+            return;
+        }
+        for (String key : keys) {
+            trie.insert(key, suggestion);
+        }
+        indexed.put(suggestion.key(), suggestion);
+    }
+
+    // The normalized name from each of its words on, so "running shoes" also completes "sho"
+    private static List<String> keys(String name) {
+        List<String> tokens = SearchTokenizer.tokenize(name);
+        List<String> keys = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            keys.add(String.join(" ", tokens.subList(i, tokens.size())));
+        }
+        return keys;
+    }
+}
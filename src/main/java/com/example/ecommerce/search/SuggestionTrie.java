@@ -0,0 +1,160 @@
+package com.example.ecommerce.search;
+
+import com.example.ecommerce.enums.SuggestionType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Radix trie from normalized keys to suggestions. Every node keeps the best suggestions of
+ * its whole subtree, so completing a prefix costs one walk down the prefix and no search
+ * below it. Inserting or removing a key only recomputes the nodes along its path.
+ * Not thread safe.
+ */
+final class SuggestionTrie {
+
+    static final Comparator<Suggestion> BEST_FIRST = Comparator.comparingLong(Suggestion::weight).reversed()
+            .thenComparingInt(suggestion -> suggestion.text().length())
+            .thenComparing(Suggestion::text);
+
+    private final int topSize;
+    private final Node root = new Node("");
+
+    SuggestionTrie(int topSize) {
+        this.topSize = topSize;
+    }
+
+    /**
+     * The best suggestions of every key starting with the prefix.
+     */
+    List<Suggestion> complete(String prefix, int limit) {
+        Node node = root;
+        int matched = 0;
+        while (matched < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(matched));
+            if (child == null) {
+                return List.of();
+            }
+            int common = commonPrefix(child.label, prefix, matched);
+            if (matched + common < prefix.length() && common < child.label.length()) {
+                return List.of();
+            }
+            matched += common;
+            node = child;
+        }
+        return node.top.subList(0, Math.min(limit, node.top.size()));
+    }
+
+    void insert(String key, Suggestion suggestion) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int matched = 0;
+        while (matched < key.length()) {
+            char next = key.charAt(matched);
+            Node child = node.children.get(next);
+            if (child == null) {
+                child = new Node(key.substring(matched));
+                node.children.put(next, child);
+                matched = key.length();
+            } else {
+                int common = commonPrefix(child.label, key, matched);
+                if (common < child.label.length()) {
+                    child = split(node, child, common);
+                }
+                matched += common;
+            }
+            node = child;
+            path.add(node);
+        }
+        node.suggestions.put(suggestion.key(), suggestion);
+        refresh(path);
+    }
+
+    void remove(String key, Suggestion.Key suggestionKey) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.children.get(key.charAt(matched));
+            if (child == null || !key.startsWith(child.label, matched)) {
+                return;
+            }
+            matched += child.label.length();
+            node = child;
+            path.add(node);
+        }
+        if (node.suggestions.remove(suggestionKey) == null) {
+            return;
+        }
+        // Drop nodes that no longer lead anywhere
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node current = path.get(i);
+            if (!current.suggestions.isEmpty() || !current.children.isEmpty()) {
+                break;
+            }
+            path.get(i - 1).children.remove(current.label.charAt(0));
+            path.remove(i);
+        }
+        refresh(path);
+    }
+
+    // Splits the child so that its first common characters become a node of their own
+    private static Node split(Node parent, Node child, int common) {
+        Node middle = new Node(child.label.substring(0, common));
+        child.label = child.label.substring(common);
+        middle.children.put(child.label.charAt(0), child);
+        middle.top = child.top;
+        parent.children.put(middle.label.charAt(0), middle);
+        return middle;
+    }
+
+    private void refresh(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            Map<Suggestion.Key, Suggestion> best = new LinkedHashMap<>(node.suggestions);
+            for (Node child : node.children.values()) {
+                for (Suggestion suggestion : child.top) {
+                    best.putIfAbsent(suggestion.key(), suggestion);
+                }
+            }
+            node.top = best.values().stream().sorted(BEST_FIRST).limit(topSize).toList();
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int length = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < length && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        private String label;
+        private final Map<Character, Node> children = new HashMap<>();
+        // Suggestions whose key ends exactly here
+        private final Map<Suggestion.Key, Suggestion> suggestions = new HashMap<>(2);
+        private List<Suggestion> top = List.of();
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    record Suggestion(SuggestionType type, Long id, String text, long weight) {
+
+        Key key() {
+            return new Key(type, id);
+        }
+
+        record Key(SuggestionType type, Long id) {
+        }
+    }
+}
@@ -1,17 +1,38 @@
 package com.example.ecommerce.service;
 
 import com.example.ecommerce.dto.AnalyticsDto;
+import com.example.ecommerce.dto.CacheStatsDto;
+import com.example.ecommerce.dto.FunnelDto;
 import com.example.ecommerce.dto.ProductDto;
+import com.example.ecommerce.dto.SalesBreakdownDto;
+import com.example.ecommerce.dto.TimeSeriesDto;
+import com.example.ecommerce.dto.UniqueUsersDto;
 import com.example.ecommerce.dto.UserAnalyticsDto;
+import com.example.ecommerce.enums.CustomerSegment;
+import com.example.ecommerce.enums.SalesDimension;
+import com.example.ecommerce.enums.TimeSeriesBucket;
+import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 public interface AnalyticsService {
 
     AnalyticsDto getSystemAnalytics();
 
-    AnalyticsDto getProductAnalytics();
+    AnalyticsDto getProductAnalytics(Integer windowDays);
+
+    UniqueUsersDto getUniqueUsers(LocalDate startDate, LocalDate endDate);
+
+    FunnelDto getFunnel(LocalDate startDate, LocalDate endDate, Long categoryId);
+
+    SalesBreakdownDto getSalesBreakdown(SalesDimension dimension, LocalDate startDate, LocalDate endDate);
+
+    List<CacheStatsDto> getCacheStats();
+
+    TimeSeriesDto getTimeSeries(List<String> metrics, LocalDate startDate, LocalDate endDate,
+                                TimeSeriesBucket bucket, int maxPoints);
 
 
     AnalyticsDto getAnalyticsByDate(LocalDate date);
@@ -22,5 +43,17 @@ public interface AnalyticsService {
 
     void saveDailyAnalytics();
 
+    int backfillAnalytics(LocalDate startDate, LocalDate endDate);
+
+    void backfillMissingAnalytics();
+
     UserAnalyticsDto getUserAnalytics(Long userId);
+
+    Map<Long, UserAnalyticsDto> getUserAnalytics(List<Long> userIds);
+
+    Map<Long, UserAnalyticsDto> getUserAnalytics(Pageable pageable);
+
+    Map<CustomerSegment, Long> getSegmentSizes();
+
+    int segmentCustomers();
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.enums.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+public interface ExportService {
+
+    void exportOrders(String filter, ExportFormat format, OutputStream out) throws IOException;
+
+    void exportPayments(String filter, ExportFormat format, OutputStream out) throws IOException;
+
+    void exportAnalytics(LocalDate startDate, LocalDate endDate, ExportFormat format, OutputStream out) throws IOException;
+}
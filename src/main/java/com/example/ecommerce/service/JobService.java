@@ -0,0 +1,19 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.JobMetricsDto;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface JobService {
+
+    /**
+     * Runs the task on this node if no other node holds the job's lease. The lease expires
+     * after lockAtMost even if the node dies, and is kept for at least lockAtLeast after
+     * the start so that nodes with slightly different clocks do not run the job twice.
+     * Returns whether the task ran and succeeded here.
+     */
+    boolean runExclusively(String jobName, Duration lockAtMost, Duration lockAtLeast, Runnable task);
+
+    List<JobMetricsDto> getJobMetrics();
+}
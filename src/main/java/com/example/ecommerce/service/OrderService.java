@@ -1,8 +1,11 @@
 package com.example.ecommerce.service;
 
+import com.example.ecommerce.dto.CountedPage;
+import com.example.ecommerce.dto.CursorPage;
 import com.example.ecommerce.dto.OrderDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 public interface OrderService {
     OrderDto createOrder(OrderDto dto);
@@ -13,6 +16,14 @@ public interface OrderService {
 
     Page<OrderDto> getAllOrders(String filter, Pageable pageable);
 
+    CountedPage<OrderDto> getOrdersByUserIdApproximate(Long userId, Pageable pageable);
+
+    CountedPage<OrderDto> getAllOrdersApproximate(String filter, Pageable pageable);
+
+    CursorPage<OrderDto> scrollOrdersByUserId(Long userId, Sort.Order order, String cursor, int size);
+
+    CursorPage<OrderDto> scrollAllOrders(String filter, Sort.Order order, String cursor, int size);
+
     OrderDto updateOrderStatus(Long id, String status);
 
     void deleteOrder(Long id);
@@ -1,11 +1,14 @@
 package com.example.ecommerce.service;
 
+import com.example.ecommerce.dto.CountedPage;
+import com.example.ecommerce.dto.CursorPage;
 import com.example.ecommerce.dto.LookupResponse;
 import com.example.ecommerce.dto.PaymentCallbackResponse;
 import com.example.ecommerce.dto.PaymentInitiateResponse;
 import com.example.ecommerce.entity.Payment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 public interface PaymentService {
     PaymentInitiateResponse initiatePayment(Long orderId);
@@ -18,5 +21,9 @@ public interface PaymentService {
 
     Page<Payment> getAllPayments(String filter, Pageable pageable);
 
+    CountedPage<Payment> getAllPaymentsApproximate(String filter, Pageable pageable);
+
+    CursorPage<Payment> scrollAllPayments(String filter, Sort.Order order, String cursor, int size);
+
     Page<Payment> getUserPayments(Long userId, String filter, Pageable pageable);
 }
@@ -1,8 +1,14 @@
 package com.example.ecommerce.service;
 
+import com.example.ecommerce.dto.CursorPage;
 import com.example.ecommerce.dto.ProductDto;
+import com.example.ecommerce.dto.ProductSearchCriteria;
+import com.example.ecommerce.dto.ProductSearchResultDto;
+import com.example.ecommerce.dto.SuggestionDto;
+import com.example.ecommerce.enums.ProductSearchMode;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -14,7 +20,7 @@ public interface ProductService {
 
     ProductDto updateProduct(Long id, ProductDto dto, MultipartFile image) throws IOException;
 
-    ProductDto getProductById(Long id);
+    ProductDto getProductById(Long id, boolean includeStats);
 
     Page<ProductDto> getAllProducts(Pageable pageable);
 
@@ -25,10 +31,25 @@ public interface ProductService {
                                     Integer maxStock,
                                     Boolean active,
                                     Long categoryId,
+                                    ProductSearchMode mode,
+                                    boolean includeStats,
                                     Pageable pageable);
 
+    ProductSearchResultDto searchProductsWithFacets(ProductSearchCriteria criteria,
+                                                    ProductSearchMode mode,
+                                                    boolean includeStats,
+                                                    Pageable pageable);
+
+    CursorPage<ProductDto> scrollProducts(ProductSearchCriteria criteria,
+                                          Sort.Order order,
+                                          String cursor,
+                                          int size,
+                                          boolean includeStats);
+
     void deleteProduct(Long id);
 
     List<ProductDto> getRelatedProducts(Long productId, int limit);
 
+    List<SuggestionDto> suggest(String query, int limit);
+
 }
@@ -4,6 +4,7 @@ import com.example.ecommerce.dto.AuthRequest;
 import com.example.ecommerce.dto.AuthResponse;
 import com.example.ecommerce.dto.UpdateUserDto;
 import com.example.ecommerce.dto.UserDto;
+import com.example.ecommerce.enums.CustomerSegment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -18,6 +19,8 @@ public interface UserService {
 
     Page<UserDto> searchUsers(String keyword, Pageable pageable);
 
+    Page<UserDto> getUsersBySegment(CustomerSegment segment, Pageable pageable);
+
     UpdateUserDto updateUser(Long id, UpdateUserDto dto);
 
     UserDto uploadProfilePicture(Long userId, org.springframework.web.multipart.MultipartFile file) throws java.io.IOException;
@@ -1,27 +1,58 @@
 package com.example.ecommerce.service.impl;
 
+import com.example.ecommerce.analytics.AnalyticsAggregator;
+import com.example.ecommerce.analytics.AnalyticsBackfillJob;
+import com.example.ecommerce.analytics.AnalyticsSectionExecutor;
+import com.example.ecommerce.analytics.ConversionFunnel;
+import com.example.ecommerce.analytics.CustomerSegmentationJob;
+import com.example.ecommerce.analytics.DailyAnalyticsCache;
+import com.example.ecommerce.analytics.LiveAnalyticsCounters;
+import com.example.ecommerce.analytics.HyperLogLog;
+import com.example.ecommerce.analytics.ProductLeaderboard;
+import com.example.ecommerce.analytics.SalesBreakdownAggregator;
+import com.example.ecommerce.analytics.TimeSeriesAggregator;
+import com.example.ecommerce.analytics.UniqueUserEstimator;
+import com.example.ecommerce.cache.ProductCache;
 import com.example.ecommerce.dto.AnalyticsDto;
+import com.example.ecommerce.dto.CacheStatsDto;
 import com.example.ecommerce.dto.CategoryDto;
+import com.example.ecommerce.dto.FunnelDayDto;
+import com.example.ecommerce.dto.FunnelDto;
 import com.example.ecommerce.dto.ProductDto;
+import com.example.ecommerce.dto.SalesBreakdownDto;
+import com.example.ecommerce.dto.TimeSeriesDto;
+import com.example.ecommerce.dto.UniqueUsersDto;
 import com.example.ecommerce.dto.UserAnalyticsDto;
 import com.example.ecommerce.entity.*;
+import com.example.ecommerce.enums.CustomerSegment;
 import com.example.ecommerce.enums.Gender;
 import com.example.ecommerce.enums.OrderStatus;
+import com.example.ecommerce.enums.PaymentMethod;
 import com.example.ecommerce.enums.PaymentStatus;
+import com.example.ecommerce.enums.RollupGrain;
+import com.example.ecommerce.enums.SalesDimension;
+import com.example.ecommerce.enums.SketchMetric;
+import com.example.ecommerce.enums.TimeSeriesBucket;
+import com.example.ecommerce.enums.TimeSeriesMetric;
 import com.example.ecommerce.mapper.AnalyticsMapper;
 import com.example.ecommerce.repository.*;
 import com.example.ecommerce.service.AnalyticsService;
+import com.example.ecommerce.service.JobService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.Period;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,49 +60,78 @@ import java.util.stream.Collectors;
 @Slf4j
 public class AnalyticsServiceImpl implements AnalyticsService {
 
+    private static final int MAX_USER_ANALYTICS_BATCH = 200;
+
     private final AnalyticsRepository analyticsRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final CartRepository cartRepository;
-    private final OrderRepository orderRepository;
-    private final PaymentRepository paymentRepository;
     private final OrderItemRepository orderItemRepository;
     private final AnalyticsMapper analyticsMapper;
+    private final AnalyticsAggregator analyticsAggregator;
+    private final LiveAnalyticsCounters liveAnalyticsCounters;
+    private final ProductLeaderboard productLeaderboard;
+    private final UniqueUserEstimator uniqueUserEstimator;
+    private final ConversionFunnel conversionFunnel;
+    private final DailyAnalyticsCache dailyAnalyticsCache;
+    private final TimeSeriesAggregator timeSeriesAggregator;
+    private final JobService jobService;
+    private final SalesBreakdownAggregator salesBreakdownAggregator;
+    private final AnalyticsSectionExecutor analyticsSectionExecutor;
+    private final AnalyticsBackfillJob analyticsBackfillJob;
+    private final CustomerSegmentationJob customerSegmentationJob;
+    private final AnalyticsRollupRepository analyticsRollupRepository;
+    private final UserStatsRepository userStatsRepository;
+    private final UserSegmentRepository userSegmentRepository;
+    private final ProductCache productCache;
+
+    @Value("${analytics.backfill.lookback-days:90}")
+    private int backfillLookbackDays;
 
     @Override
-    @Transactional(readOnly = true)
     public AnalyticsDto getSystemAnalytics() {
         AnalyticsDto analyticsDto = new AnalyticsDto();
+        Map<String, Consumer<AnalyticsDto>> sections = new LinkedHashMap<>();
+        boolean countersReady = liveAnalyticsCounters.isReady();
 
-        // User analytics
-        setUserAnalytics(analyticsDto);
-
-        // Product analytics
-        setProductAnalytics(analyticsDto);
-
-        // Category analytics
-        setCategoryAnalytics(analyticsDto);
-
-        // Cart analytics
-        setCartAnalytics(analyticsDto);
-
-        // Order analytics
-        setOrderAnalytics(analyticsDto);
-
-        // Payment analytics
-        setPaymentAnalytics(analyticsDto);
+        if (countersReady) {
+            // User, product, order, payment and all-time revenue counters from the in-process snapshot
+            liveAnalyticsCounters.applyTo(analyticsDto);
+        } else {
+            // Counters not reconciled yet (startup), fall back to the aggregate queries
+            sections.put("users", this::setUserAnalytics);
+            sections.put("orders", this::setOrderAnalytics);
+            sections.put("payments", this::setPaymentAnalytics);
+        }
 
-        // Revenue analytics - for system analytics, calculate total revenue and last month's revenue
-        setRevenueAnalytics(analyticsDto);
+        sections.put("products", dto -> {
+            if (!countersReady) {
+                setProductAnalytics(dto);
+            }
+            setProductHighlights(dto);
+        });
+        sections.put("categories", dto -> {
+            setCategoryAnalytics(dto);
+            setCategoryHighlights(dto);
+        });
+        sections.put("carts", this::setCartAnalytics);
+        sections.put("uniqueUsers", uniqueUserEstimator::applyTo);
+        sections.put("revenue", dto -> {
+            if (!countersReady) {
+                dto.setTotalRevenue(calculateTotalRevenue());
+            }
+            dto.setTotalRevenueLastMonth(calculateLastMonthRevenue());
+        });
 
+        analyticsSectionExecutor.run(analyticsDto, sections);
         return analyticsDto;
     }
 
     @Override
-    public AnalyticsDto getProductAnalytics() {
+    public AnalyticsDto getProductAnalytics(Integer windowDays) {
         AnalyticsDto analyticsDto = new AnalyticsDto();
-        setOnlyProductAnalytics(analyticsDto);
+        setOnlyProductAnalytics(analyticsDto, windowDays);
         return analyticsDto;
     }
 
@@ -79,63 +139,209 @@ public class AnalyticsServiceImpl implements AnalyticsService {
     @Override
     @Transactional(readOnly = true)
     public AnalyticsDto getAnalyticsByDate(LocalDate date) {
-        return analyticsRepository.findByAnalyticsDate(date)
-                .map(analyticsMapper::toDTO)
+        return getAnalyticsByDateRange(date, date).stream()
+                .findFirst()
                 .orElseThrow(() -> new RuntimeException("Analytics not found for date: " + date));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<AnalyticsDto> getAnalyticsByDateRange(LocalDate startDate, LocalDate endDate) {
+        // Past days come from the cache, only uncached days and today reach the database
+        return dailyAnalyticsCache.getRange(startDate, endDate, this::loadAnalyticsByDateRange);
+    }
+
+    private List<AnalyticsDto> loadAnalyticsByDateRange(LocalDate startDate, LocalDate endDate) {
+        // Revenue comes from the rollups, so snapshots reflect payments completed after they were taken
+        Map<LocalDateTime, BigDecimal> dailyRevenue = revenueByBucket(RollupGrain.DAY,
+                startDate.atStartOfDay(), endDate.atStartOfDay());
+        Map<LocalDateTime, BigDecimal> monthlyRevenue = revenueByBucket(RollupGrain.MONTH,
+                startDate.minusMonths(1).withDayOfMonth(1).atStartOfDay(), endDate.atStartOfDay());
+
         return analyticsRepository.findByDateRange(startDate, endDate)
                 .stream()
-                .map(analyticsMapper::toDTO)
+                .map(analytics -> {
+                    AnalyticsDto dto = analyticsMapper.toDTO(analytics);
+                    LocalDate date = analytics.getAnalyticsDate();
+                    dto.setTotalRevenue(dailyRevenue.getOrDefault(date.atStartOfDay(), BigDecimal.ZERO));
+                    dto.setTotalRevenueLastMonth(monthlyRevenue.getOrDefault(
+                            date.minusMonths(1).withDayOfMonth(1).atStartOfDay(), BigDecimal.ZERO));
+                    return dto;
+                })
                 .collect(Collectors.toList());
     }
 
+    private Map<LocalDateTime, BigDecimal> revenueByBucket(RollupGrain grain, LocalDateTime start, LocalDateTime end) {
+        return analyticsRollupRepository.findByGrainAndBucketStartBetweenOrderByBucketStart(grain, start, end)
+                .stream()
+                .collect(Collectors.toMap(AnalyticsRollup::getBucketStart, AnalyticsRollup::getCompletedRevenue));
+    }
+
     @Override
     @Transactional
     public AnalyticsDto generateDailyAnalytics() {
-        Analytics analytics = Analytics.builder()
-                .analyticsDate(LocalDate.now())
-                .build();
-
-        // User analytics
-        setUserAnalytics(analytics);
-
-        // Product analytics
-        setProductAnalytics(analytics);
-
-        // Category analytics
-        setCategoryAnalytics(analytics);
+        LocalDate today = LocalDate.now();
+        AnalyticsDto analyticsDto = new AnalyticsDto();
 
-        // Cart analytics
-        setCartAnalytics(analytics);
+        Map<String, Consumer<AnalyticsDto>> sections = new LinkedHashMap<>();
+        sections.put("users", this::setUserAnalytics);
+        sections.put("products", this::setProductAnalytics);
+        sections.put("categories", this::setCategoryAnalytics);
+        sections.put("carts", this::setCartAnalytics);
+        sections.put("orders", this::setOrderAnalytics);
+        sections.put("payments", this::setPaymentAnalytics);
+        // Revenue analytics - for daily analytics, calculate daily revenue and last month's revenue
+        sections.put("revenue", dto -> setDailyRevenueAnalytics(dto, today));
 
-        // Order analytics
-        setOrderAnalytics(analytics);
+        analyticsSectionExecutor.run(analyticsDto, sections);
 
-        // Payment analytics
-        setPaymentAnalytics(analytics);
+        // A persisted daily snapshot must be complete, unlike the live dashboard
+        if (!analyticsDto.getIncompleteSections().isEmpty()) {
+            throw new RuntimeException("Daily analytics incomplete, sections failed or timed out: "
+                    + analyticsDto.getIncompleteSections());
+        }
 
-        // Revenue analytics - for daily analytics, calculate daily revenue and last month's revenue
-        setDailyRevenueAnalytics(analytics, LocalDate.now());
+        Analytics analytics = analyticsMapper.toEntity(analyticsDto);
+        analytics.setAnalyticsDate(today);
 
         Analytics savedAnalytics = analyticsRepository.save(analytics);
-        return analyticsMapper.toDTO(savedAnalytics);
+        AnalyticsDto savedDto = analyticsMapper.toDTO(savedAnalytics);
+        savedDto.setSectionLatenciesMs(analyticsDto.getSectionLatenciesMs());
+        savedDto.setIncompleteSections(analyticsDto.getIncompleteSections());
+        return savedDto;
     }
 
     @Override
     @Scheduled(cron = "0 0 0 * * ?") // Run daily at midnight
     public void saveDailyAnalytics() {
-        try {
+        // Leased, so only one node of the cluster inserts the snapshot
+        jobService.runExclusively("daily-analytics", Duration.ofMinutes(30), Duration.ofMinutes(5), () -> {
             if (!analyticsRepository.existsByAnalyticsDate(LocalDate.now())) {
                 generateDailyAnalytics();
                 log.info("Daily analytics saved successfully for date: {}", LocalDate.now());
             }
-        } catch (Exception e) {
-            log.error("Failed to save daily analytics: {}", e.getMessage(), e);
+        });
+    }
+
+    @Override
+    public UniqueUsersDto getUniqueUsers(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+        return UniqueUsersDto.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .uniqueBuyers(uniqueUserEstimator.estimate(SketchMetric.BUYERS, startDate, endDate))
+                .activeUsers(uniqueUserEstimator.estimate(SketchMetric.ACTIVE_USERS, startDate, endDate))
+                .relativeError(HyperLogLog.RELATIVE_ERROR)
+                .build();
+    }
+
+    @Override
+    public TimeSeriesDto getTimeSeries(List<String> metrics, LocalDate startDate, LocalDate endDate,
+                                       TimeSeriesBucket bucket, int maxPoints) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+        if (metrics == null || metrics.isEmpty()) {
+            throw new IllegalArgumentException("At least one metric is required");
+        }
+        if (maxPoints < 1 || maxPoints > TimeSeriesAggregator.MAX_POINTS) {
+            throw new IllegalArgumentException("maxPoints must be between 1 and " + TimeSeriesAggregator.MAX_POINTS);
         }
+        List<TimeSeriesMetric> parsed = metrics.stream()
+                .map(String::trim)
+                .map(TimeSeriesMetric::from)
+                .toList();
+        return timeSeriesAggregator.getSeries(parsed, startDate, endDate, bucket, maxPoints);
+    }
+
+    @Override
+    public SalesBreakdownDto getSalesBreakdown(SalesDimension dimension, LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+        return SalesBreakdownDto.builder()
+                .dimension(dimension)
+                .startDate(startDate)
+                .endDate(endDate)
+                .rows(salesBreakdownAggregator.getBreakdown(dimension, startDate, endDate))
+                .build();
+    }
+
+    @Override
+    public List<CacheStatsDto> getCacheStats() {
+        return List.of(dailyAnalyticsCache.getStats(), salesBreakdownAggregator.getStats(), productCache.getStats());
+    }
+
+    @Override
+    public FunnelDto getFunnel(LocalDate startDate, LocalDate endDate, Long categoryId) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+        List<FunnelDayDto> days = conversionFunnel.getDays(categoryId, startDate, endDate);
+        long cartAdds = days.stream().mapToLong(FunnelDayDto::getCartAdds).sum();
+        long ordersPlaced = days.stream().mapToLong(FunnelDayDto::getOrdersPlaced).sum();
+        long paymentsCompleted = days.stream().mapToLong(FunnelDayDto::getPaymentsCompleted).sum();
+
+        return FunnelDto.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .categoryId(categoryId)
+                .cartAdds(cartAdds)
+                .ordersPlaced(ordersPlaced)
+                .paymentsCompleted(paymentsCompleted)
+                .cartToOrderRate(conversionRate(ordersPlaced, cartAdds))
+                .orderToPaymentRate(conversionRate(paymentsCompleted, ordersPlaced))
+                .cartToPaymentRate(conversionRate(paymentsCompleted, cartAdds))
+                .days(days)
+                .build();
+    }
+
+    private static BigDecimal conversionRate(long converted, long entered) {
+        if (entered == 0) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(converted * 100L).divide(BigDecimal.valueOf(entered), 2, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public int backfillAnalytics(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+        if (endDate.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("Cannot backfill analytics for future dates");
+        }
+        int rows = analyticsBackfillJob.backfill(startDate, endDate);
+        dailyAnalyticsCache.evict(startDate, endDate);
+        return rows;
+    }
+
+    @Override
+    @Scheduled(cron = "${analytics.backfill.cron:0 30 0 * * ?}") // Fill days missed while the node was down
+    public void backfillMissingAnalytics() {
+        jobService.runExclusively("analytics-backfill", Duration.ofHours(1), Duration.ofMinutes(5), () -> {
+            LocalDate endDate = LocalDate.now().minusDays(1);
+            LocalDate startDate = endDate.minusDays(backfillLookbackDays - 1L);
+            Set<LocalDate> existing = new HashSet<>(analyticsRepository.findDatesBetween(startDate, endDate));
+
+            List<LocalDate> missing = new ArrayList<>();
+            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+                if (!existing.contains(date)) {
+                    missing.add(date);
+                }
+            }
+
+            if (!missing.isEmpty()) {
+                // Only the holes are written, real snapshots between them are kept as they are
+                int rows = analyticsBackfillJob.backfillMissing(missing);
+                for (LocalDate date : missing) {
+                    dailyAnalyticsCache.evict(date, date);
+                }
+                log.info("Backfilled {} missing analytics days between {} and {}", rows,
+                        missing.get(0), missing.get(missing.size() - 1));
+            }
+        });
     }
 
 
@@ -145,198 +351,171 @@ public class AnalyticsServiceImpl implements AnalyticsService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
 
-        return buildUserAnalyticsDto(user);
+        return buildUserAnalytics(List.of(user)).get(userId);
     }
 
-    private UserAnalyticsDto buildUserAnalyticsDto(User user) {
-        List<Order> userOrders = orderRepository.findByUser(user);
-        List<Payment> userPayments = paymentRepository.findByUser(user);
-        Optional<Cart> userCart = cartRepository.findByUser(user);
-
-        // Calculate orders in last 30 days
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        int ordersLast30Days = (int) userOrders.stream()
-                .filter(order -> order.getCreatedAt().isAfter(thirtyDaysAgo))
-                .count();
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, UserAnalyticsDto> getUserAnalytics(List<Long> userIds) {
+        if (userIds.size() > MAX_USER_ANALYTICS_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_USER_ANALYTICS_BATCH + " users can be requested at once");
+        }
+        Map<Long, User> usersById = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
 
-        // Calculate total spent from completed payments
-        BigDecimal totalSpent = userPayments.stream()
-                .filter(payment -> payment.getStatus() == PaymentStatus.COMPLETED)
-                .map(Payment::getAmount)
+        // Keep the caller's order, silently skipping ids that do not exist
+        List<User> users = userIds.stream()
+                .distinct()
+                .map(usersById::get)
                 .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .toList();
+        return buildUserAnalytics(users);
+    }
 
-        // Get last order
-        Optional<Order> lastOrder = userOrders.stream()
-                .max(Comparator.comparing(Order::getCreatedAt));
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, UserAnalyticsDto> getUserAnalytics(Pageable pageable) {
+        if (pageable.isUnpaged() || pageable.getPageSize() > MAX_USER_ANALYTICS_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_USER_ANALYTICS_BATCH + " users can be requested at once");
+        }
+        return buildUserAnalytics(userRepository.findAll(pageable).getContent());
+    }
 
-        // Calculate average order value
-        BigDecimal averageOrderValue = userOrders.isEmpty() ? BigDecimal.ZERO :
-                totalSpent.divide(BigDecimal.valueOf(userOrders.size()), 2, BigDecimal.ROUND_HALF_UP);
+    @Override
+    @Transactional(readOnly = true)
+    public Map<CustomerSegment, Long> getSegmentSizes() {
+        Map<CustomerSegment, Long> sizes = new EnumMap<>(CustomerSegment.class);
+        for (CustomerSegment segment : CustomerSegment.values()) {
+            sizes.put(segment, 0L);
+        }
+        for (Object[] row : userSegmentRepository.countGroupBySegment()) {
+            sizes.put((CustomerSegment) row[0], (Long) row[1]);
+        }
+        return sizes;
+    }
+
+    @Override
+    public int segmentCustomers() {
+        return customerSegmentationJob.segmentCustomers();
+    }
+
+    // One IN query each for user stats, carts and segments, however many users are requested
+    private Map<Long, UserAnalyticsDto> buildUserAnalytics(List<User> users) {
+        List<Long> userIds = users.stream().map(User::getId).toList();
 
-        // Get favorite categories
-        List<String> favoriteCategories = getFavoriteCategories(user);
+        Map<Long, UserStats> statsByUser = userStatsRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(UserStats::getUserId, stats -> stats));
 
-        // Determine loyalty tier based on total spent
-        String loyaltyTier = determineLoyaltyTier(totalSpent);
+        Map<Long, CartSummary> cartsByUser = new HashMap<>();
+        for (Object[] row : cartRepository.summarizeByUserIds(userIds)) {
+            cartsByUser.put((Long) row[0], new CartSummary(((Number) row[1]).intValue(), (BigDecimal) row[2]));
+        }
+
+        // Users created since the last segmentation run have no segment yet
+        Map<Long, CustomerSegment> segmentsByUser = userSegmentRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(UserSegment::getUserId, UserSegment::getSegment));
+
+        Map<Long, UserAnalyticsDto> analytics = new LinkedHashMap<>();
+        for (User user : users) {
+            analytics.put(user.getId(), buildUserAnalyticsDto(
+                    user,
+                    statsByUser.getOrDefault(user.getId(), emptyUserStats(user.getId())),
+                    cartsByUser.getOrDefault(user.getId(), CartSummary.EMPTY),
+                    segmentsByUser.getOrDefault(user.getId(), CustomerSegment.PROSPECT)));
+        }
+        return analytics;
+    }
+
+    private UserAnalyticsDto buildUserAnalyticsDto(User user, UserStats stats, CartSummary cart, CustomerSegment segment) {
+        BigDecimal totalSpent = stats.getTotalSpent();
+
+        // Calculate average order value
+        BigDecimal averageOrderValue = stats.getTotalOrders() == 0 ? BigDecimal.ZERO :
+                totalSpent.divide(BigDecimal.valueOf(stats.getTotalOrders()), 2, RoundingMode.HALF_UP);
 
         return UserAnalyticsDto.builder()
                 .isActive(user.isActive())
                 .joinedDate(user.getCreatedAt())
 
                 // Order summary
-                .totalOrders(userOrders.size())
-                .pendingOrders((int) userOrders.stream().filter(o -> o.getStatus() == OrderStatus.PENDING).count())
-                .deliveredOrders((int) userOrders.stream().filter(o -> o.getStatus() == OrderStatus.DELIVERED).count())
-                .cancelledOrders((int) userOrders.stream().filter(o -> o.getStatus() == OrderStatus.CANCELLED).count())
+                .totalOrders(stats.getTotalOrders())
+                .pendingOrders(stats.getPendingOrders())
+                .deliveredOrders(stats.getDeliveredOrders())
+                .cancelledOrders(stats.getCancelledOrders())
 
                 // Financial summary
                 .totalSpent(totalSpent)
                 .averageOrderValue(averageOrderValue)
-                .lastOrderAmount(lastOrder.map(Order::getTotalAmount).orElse(BigDecimal.ZERO))
-                .lastOrderDate(lastOrder.map(Order::getCreatedAt).orElse(null))
+                .lastOrderAmount(stats.getLastOrderAmount() != null ? stats.getLastOrderAmount() : BigDecimal.ZERO)
+                .lastOrderDate(stats.getLastOrderDate())
 
                 // Current cart status
-                .cartItemsCount(userCart.map(cart -> cart.getItems().size()).orElse(0))
-                .cartTotalValue(userCart.map(Cart::getTotalPrice).orElse(BigDecimal.ZERO))
+                .cartItemsCount(cart.itemCount())
+                .cartTotalValue(cart.totalPrice() != null ? cart.totalPrice() : BigDecimal.ZERO)
 
                 // Payment summary
-                .totalPayments(userPayments.size())
-                .successfulPayments((int) userPayments.stream().filter(p -> p.getStatus() == PaymentStatus.COMPLETED).count())
-                .failedPayments((int) userPayments.stream().filter(p -> p.getStatus() == PaymentStatus.FAILED).count())
+                .totalPayments(stats.getTotalPayments())
+                .successfulPayments(stats.getSuccessfulPayments())
+                .failedPayments(stats.getFailedPayments())
 
                 // Favorite categories
-                .favoriteCategories(favoriteCategories)
+                .favoriteCategories(stats.getFavoriteCategories() != null
+                        ? List.of(stats.getFavoriteCategories()) : List.of())
 
                 // Activity metrics
-                .loyaltyTier(loyaltyTier)
-                .ordersLast30Days(ordersLast30Days)
+                .loyaltyTier(segment.getLabel())
+                .ordersLast30Days(stats.getOrdersLast30Days())
                 .build();
     }
 
-    private List<String> getFavoriteCategories(User user) {
-        List<Order> userOrders = orderRepository.findByUser(user);
-
-        // Count category occurrences
-        Map<String, Integer> categoryCount = new HashMap<>();
-        for (Order order : userOrders) {
-            for (OrderItem item : order.getItems()) {
-                if (item.getProduct() != null && item.getProduct().getCategory() != null) {
-                    String categoryName = item.getProduct().getCategory().getName();
-                    categoryCount.put(categoryName, categoryCount.getOrDefault(categoryName, 0) + 1);
-                }
-            }
-        }
-
-        // Get top 3 category names
-        return categoryCount.entrySet().stream()
-                .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
-                .limit(3)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
-    }
-
-    private String determineLoyaltyTier(BigDecimal totalSpent) {
-        if (totalSpent.compareTo(new BigDecimal("1000")) >= 0) {
-            return "Gold";
-        } else if (totalSpent.compareTo(new BigDecimal("500")) >= 0) {
-            return "Silver";
-        } else if (totalSpent.compareTo(new BigDecimal("100")) >= 0) {
-            return "Bronze";
-        } else {
-            return "New Customer";
-        }
-    }
-
-    private void setUserAnalytics(Analytics analytics) {
-        List<User> users = userRepository.findAll();
-
-        analytics.setTotalUsers(users.size());
-        analytics.setActiveUsers((int) users.stream().filter(User::isActive).count());
-        analytics.setInactiveUsers((int) users.stream().filter(user -> !user.isActive()).count());
-
-        // Fix gender comparison with null safety
-        analytics.setMaleUsers((int) users.stream()
-                .filter(user -> user.getGender() != null && Gender.MALE.equals(user.getGender()))
-                .count());
-
-        analytics.setFemaleUsers((int) users.stream()
-                .filter(user -> user.getGender() != null && Gender.FEMALE.equals(user.getGender()))
-                .count());
-
-        analytics.setOtherGenderUsers((int) users.stream()
-                .filter(user -> user.getGender() != null && Gender.OTHER.equals(user.getGender()))
-                .count());
-
-        // Age calculation based on account creation date (temporary)
-        LocalDate now = LocalDate.now();
-        analytics.setUsersFromTenToTwenty((int) users.stream()
-                .filter(user -> calculateAge(user.getCreatedAt().toLocalDate(), now) >= 10)
-                .filter(user -> calculateAge(user.getCreatedAt().toLocalDate(), now) < 20)
-                .count());
-
-        analytics.setUsersFromTwentyToThirty((int) users.stream()
-                .filter(user -> calculateAge(user.getCreatedAt().toLocalDate(), now) >= 20)
-                .filter(user -> calculateAge(user.getCreatedAt().toLocalDate(), now) < 30)
-                .count());
-
-        analytics.setUsersAboveThirty((int) users.stream()
-                .filter(user -> calculateAge(user.getCreatedAt().toLocalDate(), now) >= 30)
-                .count());
+    private record CartSummary(int itemCount, BigDecimal totalPrice) {
+        private static final CartSummary EMPTY = new CartSummary(0, BigDecimal.ZERO);
+    }
+
+    // A user without orders or payments has no user_stats row yet
+    private static UserStats emptyUserStats(Long userId) {
+        return UserStats.builder()
+                .userId(userId)
+                .totalOrders(0)
+                .pendingOrders(0)
+                .confirmedOrders(0)
+                .shippedOrders(0)
+                .deliveredOrders(0)
+                .cancelledOrders(0)
+                .ordersLast30Days(0)
+                .totalSpent(BigDecimal.ZERO)
+                .totalPayments(0)
+                .successfulPayments(0)
+                .failedPayments(0)
+                .build();
     }
 
     private void setUserAnalytics(AnalyticsDto analyticsDto) {
-        List<User> users = userRepository.findAll();
-
-        analyticsDto.setTotalUsers(users.size());
-        analyticsDto.setActiveUsers((int) users.stream().filter(User::isActive).count());
-        analyticsDto.setInactiveUsers((int) users.stream().filter(user -> !user.isActive()).count());
-
-        // Fix gender comparison with null safety
-        analyticsDto.setMaleUsers((int) users.stream()
-                .filter(user -> user.getGender() != null && Gender.MALE.equals(user.getGender()))
-                .count());
-
-        analyticsDto.setFemaleUsers((int) users.stream()
-                .filter(user -> user.getGender() != null && Gender.FEMALE.equals(user.getGender()))
-                .count());
+        AnalyticsAggregator.UserCounts users = analyticsAggregator.countUsers();
 
-        analyticsDto.setOtherGenderUsers((int) users.stream()
-                .filter(user -> user.getGender() != null && Gender.OTHER.equals(user.getGender()))
-                .count());
+        analyticsDto.setTotalUsers((int) users.total());
+        analyticsDto.setActiveUsers((int) users.active());
+        analyticsDto.setInactiveUsers((int) users.inactive());
+        analyticsDto.setMaleUsers((int) users.withGender(Gender.MALE));
+        analyticsDto.setFemaleUsers((int) users.withGender(Gender.FEMALE));
+        analyticsDto.setOtherGenderUsers((int) users.withGender(Gender.OTHER));
 
         // Age calculation based on account creation date (temporary)
-        LocalDate now = LocalDate.now();
-        analyticsDto.setUsersFromTenToTwenty((int) users.stream()
-                .filter(user -> calculateAge(user.getCreatedAt().toLocalDate(), now) >= 10)
-                .filter(user -> calculateAge(user.getCreatedAt().toLocalDate(), now) < 20)
-                .count());
-
-        analyticsDto.setUsersFromTwentyToThirty((int) users.stream()
-                .filter(user -> calculateAge(user.getCreatedAt().toLocalDate(), now) >= 20)
-                .filter(user -> calculateAge(user.getCreatedAt().toLocalDate(), now) < 30)
-                .count());
-
-        analyticsDto.setUsersAboveThirty((int) users.stream()
-                .filter(user -> calculateAge(user.getCreatedAt().toLocalDate(), now) >= 30)
-                .count());
-    }
-
-    private void setProductAnalytics(Analytics analytics) {
-        List<Product> products = productRepository.findAll();
-
-        analytics.setTotalProducts(products.size());
-        analytics.setActiveProducts((int) products.stream().filter(Product::getActive).count());
-        analytics.setInactiveProducts((int) products.stream().filter(product -> !product.getActive()).count());
+        AnalyticsAggregator.AgeBuckets ageBuckets = analyticsAggregator.countUsersByAccountAge(LocalDate.now());
+        analyticsDto.setUsersFromTenToTwenty((int) ageBuckets.tenToTwenty());
+        analyticsDto.setUsersFromTwentyToThirty((int) ageBuckets.twentyToThirty());
+        analyticsDto.setUsersAboveThirty((int) ageBuckets.aboveThirty());
     }
 
     private void setProductAnalytics(AnalyticsDto analyticsDto) {
-        List<Product> products = productRepository.findAll();
+        AnalyticsAggregator.ProductCounts products = analyticsAggregator.countProducts();
 
-        analyticsDto.setTotalProducts(products.size());
-        analyticsDto.setActiveProducts((int) products.stream().filter(Product::getActive).count());
-        analyticsDto.setInactiveProducts((int) products.stream().filter(product -> !product.getActive()).count());
+        analyticsDto.setTotalProducts((int) products.total());
+        analyticsDto.setActiveProducts((int) products.active());
+        analyticsDto.setInactiveProducts((int) products.inactive());
+    }
 
+    private void setProductHighlights(AnalyticsDto analyticsDto) {
         // New products (most recent 5)
         analyticsDto.setNewProducts(productRepository.findTop5ByOrderByCreatedAtDesc()
                 .stream()
@@ -344,18 +523,15 @@ public class AnalyticsServiceImpl implements AnalyticsService {
                 .collect(Collectors.toList()));
 
         // Popular products (5 most bought)
-        analyticsDto.setPopularProducts(orderItemRepository.findTop5ProductsByQuantity()
-                .stream()
-                .map(this::mapToProductDTO)
-                .collect(Collectors.toList()));
+        analyticsDto.setPopularProducts(findPopularProducts(5, null));
     }
 
-    private void setOnlyProductAnalytics(AnalyticsDto analyticsDto) {
-        List<Product> products = productRepository.findAll();
-
-        analyticsDto.setTotalProducts(products.size());
-        analyticsDto.setActiveProducts((int) products.stream().filter(Product::getActive).count());
-        analyticsDto.setInactiveProducts((int) products.stream().filter(product -> !product.getActive()).count());
+    private void setOnlyProductAnalytics(AnalyticsDto analyticsDto, Integer windowDays) {
+        if (liveAnalyticsCounters.isReady()) {
+            liveAnalyticsCounters.applyProductsTo(analyticsDto);
+        } else {
+            setProductAnalytics(analyticsDto);
+        }
 
         // New products (most recent 8)
         analyticsDto.setNewProducts(productRepository.findTop8ByOrderByCreatedAtDesc()
@@ -364,19 +540,33 @@ public class AnalyticsServiceImpl implements AnalyticsService {
                 .collect(Collectors.toList()));
 
         // Popular products (8 most bought)
-        analyticsDto.setPopularProducts(orderItemRepository.findTop8ProductsByQuantity()
-                .stream()
-                .map(this::mapToProductDTO)
-                .collect(Collectors.toList()));
+        analyticsDto.setPopularProducts(findPopularProducts(8, windowDays));
     }
 
-    private void setCategoryAnalytics(Analytics analytics) {
-        analytics.setTotalCategories((int) categoryRepository.count());
+    private List<ProductDto> findPopularProducts(int limit, Integer windowDays) {
+        if (!productLeaderboard.isReady() && windowDays == null) {
+            // Leaderboard not loaded yet (startup), fall back to ranking the order items, a window
+            // is ranked from the order items by the leaderboard itself
+            List<Product> products = limit <= 5
+                    ? orderItemRepository.findTop5ProductsByQuantity()
+                    : orderItemRepository.findTop8ProductsByQuantity();
+            return products.stream().map(this::mapToProductDTO).collect(Collectors.toList());
+        }
+
+        // The ranking comes from memory, the ranked products mostly from the product cache
+        List<Long> ids = productLeaderboard.topProductIds(limit, windowDays);
+        Map<Long, ProductDto> products = productCache.getAll(ids);
+        return ids.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     private void setCategoryAnalytics(AnalyticsDto analyticsDto) {
         analyticsDto.setTotalCategories((int) categoryRepository.count());
+    }
 
+    private void setCategoryHighlights(AnalyticsDto analyticsDto) {
         // New categories (most recent 5)
         analyticsDto.setNewCategories(categoryRepository.findTop5ByOrderByCreatedAtDesc()
                 .stream()
@@ -384,119 +574,29 @@ public class AnalyticsServiceImpl implements AnalyticsService {
                 .collect(Collectors.toList()));
     }
 
-    private void setCartAnalytics(Analytics analytics) {
-        analytics.setTotalCarts((int) cartRepository.count());
-    }
-
     private void setCartAnalytics(AnalyticsDto analyticsDto) {
         analyticsDto.setTotalCarts((int) cartRepository.count());
     }
 
-    private void setOrderAnalytics(Analytics analytics) {
-        List<Order> orders = orderRepository.findAll();
-
-        analytics.setTotalOrders(orders.size());
-
-        // Use proper enum comparison with null safety
-        analytics.setPendingOrders((int) orders.stream()
-                .filter(order -> order.getStatus() != null && OrderStatus.PENDING.equals(order.getStatus()))
-                .count());
-
-        analytics.setConfirmedOrders((int) orders.stream()
-                .filter(order -> order.getStatus() != null && OrderStatus.CONFIRMED.equals(order.getStatus()))
-                .count());
-
-        analytics.setShippedOrders((int) orders.stream()
-                .filter(order -> order.getStatus() != null && OrderStatus.SHIPPED.equals(order.getStatus()))
-                .count());
-
-        analytics.setDeliveredOrders((int) orders.stream()
-                .filter(order -> order.getStatus() != null && OrderStatus.DELIVERED.equals(order.getStatus()))
-                .count());
-
-        analytics.setCancelledOrders((int) orders.stream()
-                .filter(order -> order.getStatus() != null && OrderStatus.CANCELLED.equals(order.getStatus()))
-                .count());
-    }
-
     private void setOrderAnalytics(AnalyticsDto analyticsDto) {
-        List<Order> orders = orderRepository.findAll();
-
-        analyticsDto.setTotalOrders(orders.size());
-
-        // Use proper enum comparison with null safety
-        analyticsDto.setPendingOrders((int) orders.stream()
-                .filter(order -> order.getStatus() != null && OrderStatus.PENDING.equals(order.getStatus()))
-                .count());
+        Map<OrderStatus, Long> orders = analyticsAggregator.countOrdersByStatus();
 
-        analyticsDto.setConfirmedOrders((int) orders.stream()
-                .filter(order -> order.getStatus() != null && OrderStatus.CONFIRMED.equals(order.getStatus()))
-                .count());
-
-        analyticsDto.setShippedOrders((int) orders.stream()
-                .filter(order -> order.getStatus() != null && OrderStatus.SHIPPED.equals(order.getStatus()))
-                .count());
-
-        analyticsDto.setDeliveredOrders((int) orders.stream()
-                .filter(order -> order.getStatus() != null && OrderStatus.DELIVERED.equals(order.getStatus()))
-                .count());
-
-        analyticsDto.setCancelledOrders((int) orders.stream()
-                .filter(order -> order.getStatus() != null && OrderStatus.CANCELLED.equals(order.getStatus()))
-                .count());
-    }
-
-    private void setPaymentAnalytics(Analytics analytics) {
-        List<Payment> payments = paymentRepository.findAll();
-
-        analytics.setTotalPayments(payments.size());
-
-        // Only KHALTI and CASH_ON_DELIVERY payment methods with null safety
-        analytics.setPaymentViaKhalti((int) payments.stream()
-                .filter(payment -> payment.getMethod() != null && "KHALTI".equalsIgnoreCase(payment.getMethod().toString()))
-                .count());
-
-        analytics.setPaymentViaCashOnDelivery((int) payments.stream()
-                .filter(payment -> payment.getMethod() != null && "CASH_ON_DELIVERY".equalsIgnoreCase(payment.getMethod().toString()))
-                .count());
-
-        // Set other payment methods to 0 since we only have two
-        analytics.setPaymentViaCreditCard(0);
-        analytics.setPaymentViaDebitCard(0);
-        analytics.setPaymentViaEsewa(0);
-        analytics.setPaymentViaBankTransfer(0);
-
-        // Payment status comparisons with null safety
-        analytics.setPendingPayment((int) payments.stream()
-                .filter(payment -> payment.getStatus() != null && PaymentStatus.PENDING.equals(payment.getStatus()))
-                .count());
-
-        analytics.setCompletedPayment((int) payments.stream()
-                .filter(payment -> payment.getStatus() != null && PaymentStatus.COMPLETED.equals(payment.getStatus()))
-                .count());
-
-        analytics.setFailedPayment((int) payments.stream()
-                .filter(payment -> payment.getStatus() != null && PaymentStatus.FAILED.equals(payment.getStatus()))
-                .count());
-
-        analytics.setRefundedPayment((int) payments.stream()
-                .filter(payment -> payment.getStatus() != null && PaymentStatus.REFUNDED.equals(payment.getStatus()))
-                .count());
+        analyticsDto.setTotalOrders((int) orders.values().stream().mapToLong(Long::longValue).sum());
+        analyticsDto.setPendingOrders(orders.getOrDefault(OrderStatus.PENDING, 0L).intValue());
+        analyticsDto.setConfirmedOrders(orders.getOrDefault(OrderStatus.CONFIRMED, 0L).intValue());
+        analyticsDto.setShippedOrders(orders.getOrDefault(OrderStatus.SHIPPED, 0L).intValue());
+        analyticsDto.setDeliveredOrders(orders.getOrDefault(OrderStatus.DELIVERED, 0L).intValue());
+        analyticsDto.setCancelledOrders(orders.getOrDefault(OrderStatus.CANCELLED, 0L).intValue());
     }
 
     private void setPaymentAnalytics(AnalyticsDto analyticsDto) {
-        List<Payment> payments = paymentRepository.findAll();
-
-        analyticsDto.setTotalPayments(payments.size());
+        AnalyticsAggregator.PaymentCounts payments = analyticsAggregator.countPayments();
 
-        // Only KHALTI and CASH_ON_DELIVERY payment methods with null safety
-        analyticsDto.setPaymentViaKhalti((int) payments.stream()
-                .filter(payment -> payment.getMethod() != null && "KHALTI".equalsIgnoreCase(payment.getMethod().toString()))
-                .count());
+        analyticsDto.setTotalPayments((int) payments.total());
 
-        analyticsDto.setPaymentViaCashOnDelivery((int) payments.stream()
-                .filter(payment -> payment.getMethod() != null && "CASH_ON_DELIVERY".equalsIgnoreCase(payment.getMethod().toString()))
-                .count());
+        // Only KHALTI and CASH_ON_DELIVERY payment methods exist
+        analyticsDto.setPaymentViaKhalti((int) payments.withMethod(PaymentMethod.KHALTI));
+        analyticsDto.setPaymentViaCashOnDelivery((int) payments.withMethod(PaymentMethod.CASH_ON_DELIVERY));
 
         // Set other payment methods to 0
         analyticsDto.setPaymentViaCreditCard(0);
@@ -504,97 +604,39 @@ public class AnalyticsServiceImpl implements AnalyticsService {
         analyticsDto.setPaymentViaEsewa(0);
         analyticsDto.setPaymentViaBankTransfer(0);
 
-        // Payment status comparisons with null safety
-        analyticsDto.setPendingPayment((int) payments.stream()
-                .filter(payment -> payment.getStatus() != null && PaymentStatus.PENDING.equals(payment.getStatus()))
-                .count());
-
-        analyticsDto.setCompletedPayment((int) payments.stream()
-                .filter(payment -> payment.getStatus() != null && PaymentStatus.COMPLETED.equals(payment.getStatus()))
-                .count());
-
-        analyticsDto.setFailedPayment((int) payments.stream()
-                .filter(payment -> payment.getStatus() != null && PaymentStatus.FAILED.equals(payment.getStatus()))
-                .count());
-
-        analyticsDto.setRefundedPayment((int) payments.stream()
-                .filter(payment -> payment.getStatus() != null && PaymentStatus.REFUNDED.equals(payment.getStatus()))
-                .count());
-    }
-
-    private int calculateAge(LocalDate birthDate, LocalDate currentDate) {
-        return Period.between(birthDate, currentDate).getYears();
+        analyticsDto.setPendingPayment((int) payments.withStatus(PaymentStatus.PENDING));
+        analyticsDto.setCompletedPayment((int) payments.withStatus(PaymentStatus.COMPLETED));
+        analyticsDto.setFailedPayment((int) payments.withStatus(PaymentStatus.FAILED));
+        analyticsDto.setRefundedPayment((int) payments.withStatus(PaymentStatus.REFUNDED));
     }
 
-    // Add this method to calculate total revenue from completed payments
+    // Total revenue from completed payments
     private BigDecimal calculateTotalRevenue() {
-        List<Payment> completedPayments = paymentRepository.findByStatus(PaymentStatus.COMPLETED);
-        return completedPayments.stream()
-                .map(Payment::getAmount)
-                .filter(amount -> amount != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return analyticsAggregator.sumCompletedRevenue();
     }
 
-    // Add this method to calculate daily revenue for a specific date
+    // Daily revenue for a specific date
     private BigDecimal calculateDailyRevenue(LocalDate date) {
-        List<Payment> dailyCompletedPayments = paymentRepository.findByStatusAndCreatedAtBetween(
-                PaymentStatus.COMPLETED,
-                date.atStartOfDay(),
-                date.plusDays(1).atStartOfDay()
-        );
-        return dailyCompletedPayments.stream()
-                .map(Payment::getAmount)
-                .filter(amount -> amount != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
-
-    private void setRevenueAnalytics(Analytics analytics) {
-        analytics.setTotalRevenue(calculateTotalRevenue());
-        analytics.setTotalRevenueLastMonth(calculateLastMonthRevenue());
+        return analyticsRollupRepository.findCompletedRevenue(RollupGrain.DAY, date.atStartOfDay())
+                .orElse(BigDecimal.ZERO);
     }
 
-    private void setRevenueAnalytics(AnalyticsDto analyticsDto) {
-        analyticsDto.setTotalRevenue(calculateTotalRevenue());
-        analyticsDto.setTotalRevenueLastMonth(calculateLastMonthRevenue());
+    private void setDailyRevenueAnalytics(AnalyticsDto analyticsDto, LocalDate date) {
+        analyticsDto.setTotalRevenue(calculateDailyRevenue(date));
+        analyticsDto.setTotalRevenueLastMonth(calculateLastMonthRevenueForDate(date));
     }
 
-    private void setDailyRevenueAnalytics(Analytics analytics, LocalDate date) {
-        analytics.setTotalRevenue(calculateDailyRevenue(date));
-        analytics.setTotalRevenueLastMonth(calculateLastMonthRevenueForDate(date));
-    }
-
-    // Add this method to calculate last month's total revenue
+    // Last month's total revenue
     private BigDecimal calculateLastMonthRevenue() {
-        LocalDate firstDayOfLastMonth = LocalDate.now().minusMonths(1).withDayOfMonth(1);
-        LocalDate lastDayOfLastMonth = firstDayOfLastMonth.plusMonths(1).minusDays(1);
-
-        List<Payment> lastMonthCompletedPayments = paymentRepository.findByStatusAndCreatedAtBetween(
-                PaymentStatus.COMPLETED,
-                firstDayOfLastMonth.atStartOfDay(),
-                lastDayOfLastMonth.atTime(23, 59, 59)
-        );
-
-        return lastMonthCompletedPayments.stream()
-                .map(Payment::getAmount)
-                .filter(amount -> amount != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return calculateLastMonthRevenueForDate(LocalDate.now());
     }
 
-    // Add this method to calculate last month's revenue for a specific date
+    // Revenue of the calendar month before the given date
     private BigDecimal calculateLastMonthRevenueForDate(LocalDate date) {
         LocalDate firstDayOfLastMonth = date.minusMonths(1).withDayOfMonth(1);
-        LocalDate lastDayOfLastMonth = firstDayOfLastMonth.plusMonths(1).minusDays(1);
-
-        List<Payment> lastMonthCompletedPayments = paymentRepository.findByStatusAndCreatedAtBetween(
-                PaymentStatus.COMPLETED,
-                firstDayOfLastMonth.atStartOfDay(),
-                lastDayOfLastMonth.atTime(23, 59, 59)
-        );
-
-        return lastMonthCompletedPayments.stream()
-                .map(Payment::getAmount)
-                .filter(amount -> amount != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        return analyticsRollupRepository.findCompletedRevenue(RollupGrain.MONTH, firstDayOfLastMonth.atStartOfDay())
+                .orElse(BigDecimal.ZERO);
     }
 
 
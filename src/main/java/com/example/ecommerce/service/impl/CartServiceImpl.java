@@ -5,16 +5,19 @@ import com.example.ecommerce.entity.Cart;
 import com.example.ecommerce.entity.CartItem;
 import com.example.ecommerce.entity.Product;
 import com.example.ecommerce.entity.User;
+import com.example.ecommerce.event.CartItemAddedEvent;
 import com.example.ecommerce.mapper.CartMapper;
 import com.example.ecommerce.repository.CartRepository;
 import com.example.ecommerce.repository.ProductRepository;
 import com.example.ecommerce.repository.UserRepository;
 import com.example.ecommerce.service.CartService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +28,7 @@ public class CartServiceImpl implements CartService {
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final CartMapper cartMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public CartDto createCart(Long userId) {
@@ -88,7 +92,14 @@ public class CartServiceImpl implements CartService {
                 .map(CartItem::getTotalPrice)
                 .reduce(BigDecimal.ZERO, BigDecimal::add));
 
-        return cartMapper.toDto(cartRepository.save(cart));
+        CartDto saved = cartMapper.toDto(cartRepository.save(cart));
+        eventPublisher.publishEvent(new CartItemAddedEvent(
+                userId,
+                productId,
+                product.getCategory() != null ? product.getCategory().getId() : null,
+                quantityToAdd,
+                LocalDateTime.now()));
+        return saved;
     }
 
 
@@ -2,10 +2,12 @@ package com.example.ecommerce.service.impl;
 
 import com.example.ecommerce.dto.CategoryDto;
 import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.event.CategoryChangedEvent;
 import com.example.ecommerce.mapper.CategoryMapper;
 import com.example.ecommerce.repository.CategoryRepository;
 import com.example.ecommerce.service.CategoryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -19,6 +21,7 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public CategoryDto createCategory(CategoryDto dto) {
@@ -26,7 +29,9 @@ public class CategoryServiceImpl implements CategoryService {
             throw new RuntimeException("Category already exists with name: " + dto.getName());
         }
         Category category = categoryMapper.toEntity(dto);
-        return categoryMapper.toDto(categoryRepository.save(category));
+        Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId(), saved.getName()));
+        return categoryMapper.toDto(saved);
     }
 
     @Override
@@ -64,7 +69,9 @@ public class CategoryServiceImpl implements CategoryService {
         existing.setName(dto.getName());
         existing.setDescription(dto.getDescription());
 
-        return categoryMapper.toDto(categoryRepository.save(existing));
+        Category saved = categoryRepository.save(existing);
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId(), saved.getName()));
+        return categoryMapper.toDto(saved);
     }
 
     @Override
@@ -73,5 +80,6 @@ public class CategoryServiceImpl implements CategoryService {
             throw new RuntimeException("Category not found with id: " + id);
         }
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id, null));
     }
 }
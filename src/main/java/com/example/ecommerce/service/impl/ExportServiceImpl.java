@@ -0,0 +1,272 @@
+package com.example.ecommerce.service.impl;
+
+import com.example.ecommerce.enums.ExportFormat;
+import com.example.ecommerce.enums.OrderFilter;
+import com.example.ecommerce.enums.PaymentFilter;
+import com.example.ecommerce.service.ExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams report rows from a server-side JDBC cursor straight into the response body, so
+ * memory use depends on the fetch size and not on the number of rows exported.
+ */
+@Service
+@Slf4j
+public class ExportServiceImpl implements ExportService {
+
+    private static final String ORDERS_SQL = """
+            SELECT id, user_id, status, payment_status, shipping_address,
+                   shipping_cost, subtotal, total_amount, created_at, updated_at
+            FROM orders
+            """;
+
+    private static final String PAYMENTS_SQL = """
+            SELECT id, order_id, amount, method, status, transaction_id, created_at, updated_at
+            FROM payments
+            """;
+
+    // Revenue columns come from the rollups, matching /analytics/range
+    private static final String ANALYTICS_SQL = """
+            SELECT a.analytics_date,
+                   a.total_users, a.active_users, a.inactive_users, a.male_users, a.female_users, a.other_gender_users,
+                   a.users_from_ten_to_twenty, a.users_from_twenty_to_thirty, a.users_above_thirty,
+                   a.total_products, a.active_products, a.inactive_products, a.total_categories, a.total_carts,
+                   a.total_orders, a.pending_orders, a.confirmed_orders, a.shipped_orders, a.delivered_orders,
+                   a.cancelled_orders, a.total_payments,
+                   COALESCE(d.completed_revenue, 0) AS total_revenue,
+                   COALESCE(m.completed_revenue, 0) AS total_revenue_last_month,
+                   a.payment_via_khalti, a.payment_via_cash_on_delivery,
+                   a.pending_payment, a.completed_payment, a.failed_payment, a.refunded_payment
+            FROM analytics a
+            LEFT JOIN analytics_rollups d
+                   ON d.grain = 'DAY' AND d.bucket_start = a.analytics_date
+            LEFT JOIN analytics_rollups m
+                   ON m.grain = 'MONTH' AND m.bucket_start = date_trunc('month', a.analytics_date - INTERVAL '1 month')
+            WHERE a.analytics_date BETWEEN ? AND ?
+            ORDER BY a.analytics_date
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public ExportServiceImpl(DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${export.fetch-size:1000}") int fetchSize) {
+        // PostgreSQL only uses a cursor for a positive fetch size inside a transaction
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void exportOrders(String filter, ExportFormat format, OutputStream out) throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = OrderFilter.from(filter).resolveStart(now);
+
+        if (start == null) {
+            export(ORDERS_SQL + "ORDER BY id", format, out);
+        } else {
+            export(ORDERS_SQL + "WHERE created_at BETWEEN ? AND ? ORDER BY id", format, out,
+                    Timestamp.valueOf(start), Timestamp.valueOf(now));
+        }
+    }
+
+    @Override
+    public void exportPayments(String filter, ExportFormat format, OutputStream out) throws IOException {
+        LocalDateTime start = PaymentFilter.from(filter).resolveStart(LocalDateTime.now());
+
+        if (start == null) {
+            export(PAYMENTS_SQL + "ORDER BY id", format, out);
+        } else {
+            export(PAYMENTS_SQL + "WHERE created_at > ? ORDER BY id", format, out, Timestamp.valueOf(start));
+        }
+    }
+
+    @Override
+    public void exportAnalytics(LocalDate startDate, LocalDate endDate, ExportFormat format, OutputStream out)
+            throws IOException {
+        export(ANALYTICS_SQL, format, out, Date.valueOf(startDate), Date.valueOf(endDate));
+    }
+
+    private void export(String sql, ExportFormat format, OutputStream out, Object... args) throws IOException {
+        long started = System.nanoTime();
+        RowWriter writer = format == ExportFormat.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+        long[] rows = new long[1];
+
+        try {
+            // The header comes from the metadata, so an export without rows still has one
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(sql, (ResultSet rs) -> {
+                try {
+                    writer.start(rs.getMetaData());
+                    while (rs.next()) {
+                        writer.write(rs);
+                        rows[0]++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            }, args));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.finish();
+        log.info("Exported {} rows as {} in {} ms", rows[0], format, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    // snake_case column labels become the camelCase field names used by the JSON API
+    private static List<String> fieldNames(ResultSetMetaData metaData) throws SQLException {
+        List<String> names = new ArrayList<>(metaData.getColumnCount());
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String label = metaData.getColumnLabel(i);
+            StringBuilder name = new StringBuilder(label.length());
+            boolean upper = false;
+            for (char c : label.toCharArray()) {
+                if (c == '_') {
+                    upper = true;
+                } else {
+                    name.append(upper ? Character.toUpperCase(c) : c);
+                    upper = false;
+                }
+            }
+            names.add(name.toString());
+        }
+        return names;
+    }
+
+    private static Object readValue(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        if (value instanceof Date date) {
+            return date.toLocalDate();
+        }
+        return value;
+    }
+
+    private interface RowWriter {
+        void start(ResultSetMetaData metaData) throws SQLException, IOException;
+
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private List<String> fields;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            this.generator = objectMapper.createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void start(ResultSetMetaData metaData) throws SQLException {
+            fields = fieldNames(metaData);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < fields.size(); i++) {
+                generator.writeFieldName(fields.get(i));
+                generator.writeObject(readValue(rs, i + 1));
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private int columns;
+
+        CsvRowWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void start(ResultSetMetaData metaData) throws SQLException, IOException {
+            List<String> fields = fieldNames(metaData);
+            columns = fields.size();
+            writeLine(new ArrayList<>(fields));
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            List<Object> values = new ArrayList<>(columns);
+            for (int i = 1; i <= columns; i++) {
+                values.add(readValue(rs, i));
+            }
+            writeLine(values);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private void writeLine(List<?> values) throws IOException {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escape(values.get(i)));
+            }
+            writer.write("\r\n");
+        }
+
+        private static String escape(Object value) {
+            if (value == null) {
+                return "";
+            }
+            String text = value.toString();
+            // Text such as a shipping address must not open as a formula in a spreadsheet
+            if (value instanceof String && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+                text = "'" + text;
+            }
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                return '"' + text.replace("\"", "\"\"") + '"';
+            }
+            return text;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.ecommerce.service.impl;
+
+import com.example.ecommerce.dto.JobMetricsDto;
+import com.example.ecommerce.service.JobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs scheduled jobs once per cluster using leases in job_leases. Taking a lease is a single
+ * upsert that only succeeds when the row is missing or expired, so concurrent nodes cannot
+ * both win, and all lease times come from the database clock.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobServiceImpl implements JobService {
+
+    private static final String ACQUIRE_SQL = """
+            INSERT INTO job_leases (job_name, locked_until, locked_at, locked_by, created_at, updated_at)
+            VALUES (?, now() + ? * INTERVAL '1 millisecond', now(), ?, now(), now())
+            ON CONFLICT (job_name) DO UPDATE SET
+                locked_until = EXCLUDED.locked_until,
+                locked_at = EXCLUDED.locked_at,
+                locked_by = EXCLUDED.locked_by,
+                updated_at = now()
+            WHERE job_leases.locked_until <= now()
+            """;
+
+    private static final String RELEASE_SQL = """
+            UPDATE job_leases
+            SET locked_until = GREATEST(now(), locked_at + ? * INTERVAL '1 millisecond'), updated_at = now()
+            WHERE job_name = ? AND locked_by = ?
+            """;
+
+    // Host name and process ID, unique per running node
+    private static final String NODE = ManagementFactory.getRuntimeMXBean().getName();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<String, JobStats> stats = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean runExclusively(String jobName, Duration lockAtMost, Duration lockAtLeast, Runnable task) {
+        JobStats jobStats = stats.computeIfAbsent(jobName, name -> new JobStats());
+
+        // Autocommitted on its own, so the lease is visible to other nodes for the whole run
+        int acquired;
+        try {
+            acquired = jdbcTemplate.update(ACQUIRE_SQL, jobName, lockAtMost.toMillis(), NODE);
+        } catch (Exception e) {
+            jobStats.failures.increment();
+            jobStats.lastError = e.getMessage();
+            log.error("Failed to take lease of job {}: {}", jobName, e.getMessage(), e);
+            return false;
+        }
+        if (acquired == 0) {
+            jobStats.skipped.increment();
+            log.debug("Skipping job {}, its lease is held by another node", jobName);
+            return false;
+        }
+
+        long started = System.nanoTime();
+        jobStats.lastStartedAt = LocalDateTime.now();
+        boolean succeeded = false;
+        try {
+            task.run();
+            succeeded = true;
+            jobStats.lastError = null;
+        } catch (Exception e) {
+            jobStats.failures.increment();
+            jobStats.lastError = e.getMessage();
+            log.error("Job {} failed: {}", jobName, e.getMessage(), e);
+        } finally {
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            jobStats.record(durationMs);
+            release(jobName, lockAtLeast);
+            log.info("Job {} finished in {} ms", jobName, durationMs);
+        }
+        return succeeded;
+    }
+
+    private void release(String jobName, Duration lockAtLeast) {
+        try {
+            jdbcTemplate.update(RELEASE_SQL, lockAtLeast.toMillis(), jobName, NODE);
+        } catch (Exception e) {
+            // The lease then simply runs until lockAtMost
+            log.warn("Failed to release lease of job {}: {}", jobName, e.getMessage());
+        }
+    }
+
+    @Override
+    public List<JobMetricsDto> getJobMetrics() {
+        return stats.entrySet().stream()
+                .map(entry -> entry.getValue().toDto(entry.getKey()))
+                .sorted(Comparator.comparing(JobMetricsDto::getJobName))
+                .toList();
+    }
+
+    private static final class JobStats {
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder totalDurationMs = new LongAdder();
+        private final AtomicLong maxDurationMs = new AtomicLong();
+        private volatile long lastDurationMs;
+        private volatile LocalDateTime lastStartedAt;
+        private volatile String lastError;
+
+        void record(long durationMs) {
+            runs.increment();
+            totalDurationMs.add(durationMs);
+            maxDurationMs.accumulateAndGet(durationMs, Math::max);
+            lastDurationMs = durationMs;
+        }
+
+        JobMetricsDto toDto(String jobName) {
+            long runCount = runs.sum();
+            return JobMetricsDto.builder()
+                    .jobName(jobName)
+                    .runs(runCount)
+                    .failures(failures.sum())
+                    .skipped(skipped.sum())
+                    .lastDurationMs(runCount == 0 ? null : lastDurationMs)
+                    .averageDurationMs(runCount == 0 ? null : totalDurationMs.sum() / runCount)
+                    .maxDurationMs(runCount == 0 ? null : maxDurationMs.get())
+                    .lastStartedAt(lastStartedAt)
+                    .lastError(lastError)
+                    .build();
+        }
+    }
+}
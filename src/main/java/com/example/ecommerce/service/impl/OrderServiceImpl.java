@@ -1,35 +1,53 @@
 package com.example.ecommerce.service.impl;
 
+import com.example.ecommerce.dto.CountedPage;
+import com.example.ecommerce.dto.CursorPage;
 import com.example.ecommerce.dto.OrderDto;
 import com.example.ecommerce.entity.Cart;
 import com.example.ecommerce.entity.CartItem;
 import com.example.ecommerce.entity.Order;
 import com.example.ecommerce.entity.OrderItem;
+import com.example.ecommerce.enums.OrderFilter;
 import com.example.ecommerce.enums.OrderStatus;
 import com.example.ecommerce.enums.PaymentStatus;
+import com.example.ecommerce.event.OrderLine;
+import com.example.ecommerce.event.OrderStatusChangedEvent;
 import com.example.ecommerce.mapper.OrderMapper;
+import com.example.ecommerce.repository.ApproximatePagination;
 import com.example.ecommerce.repository.CartRepository;
+import com.example.ecommerce.repository.KeysetPagination;
 import com.example.ecommerce.repository.OrderRepository;
 import com.example.ecommerce.repository.UserRepository;
 import com.example.ecommerce.service.OrderService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
+    // Non-null properties the order listings can be scrolled by, besides the ID
+    private static final Set<String> CURSOR_SORTS = Set.of("createdAt", "updatedAt", "totalAmount");
+
     private final OrderRepository orderRepository;
     private final OrderMapper orderMapper;
     private final CartRepository cartRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ApproximatePagination approximatePagination;
 
     @Override
     @Transactional
@@ -71,6 +89,9 @@ public class OrderServiceImpl implements OrderService {
 
         // 3. Save order
         Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                savedOrder.getId(), savedOrder.getUser().getId(), savedOrder.getCreatedAt(), null, savedOrder.getStatus(),
+                savedOrder.getTotalAmount(), toLines(savedOrder)));
 
         // 4. Clear cart after checkout
         cart.getItems().clear();
@@ -102,38 +123,83 @@ public class OrderServiceImpl implements OrderService {
     @Override
     public Page<OrderDto> getAllOrders(String filter, Pageable pageable) {
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime startDate = null;
-
-        switch (filter.toUpperCase()) {
-            case "LAST_WEEK":
-                startDate = now.minusWeeks(1);
-                break;
-            case "LAST_MONTH":
-                startDate = now.minusMonths(1);
-                break;
-            case "LAST_YEAR":
-                startDate = now.minusYears(1);
-                break;
-            case "ALL":
-            default:
-                return orderRepository.findAllByOrderByUpdatedAtDesc(pageable).map(orderMapper::toDto);
+        LocalDateTime startDate = OrderFilter.from(filter).resolveStart(now);
+
+        if (startDate == null) {
+            return orderRepository.findAllByOrderByUpdatedAtDesc(pageable).map(orderMapper::toDto);
         }
 
         return orderRepository.findByCreatedAtBetweenOrderByUpdatedAtDesc(startDate, now, pageable)
                 .map(orderMapper::toDto);
     }
 
+    @Override
+    public CountedPage<OrderDto> getOrdersByUserIdApproximate(Long userId, Pageable pageable) {
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new IllegalArgumentException("User not found with id " + userId);
+        }
+        Specification<Order> byUser = (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+        return approximatePagination.fetch(orderRepository, Order.class, "orders", byUser, latestUpdatedFirst(pageable))
+                .map(orderMapper::toDto);
+    }
+
+    @Override
+    public CountedPage<OrderDto> getAllOrdersApproximate(String filter, Pageable pageable) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startDate = OrderFilter.from(filter).resolveStart(now);
+        Specification<Order> inWindow = startDate == null ? null
+                : (root, query, cb) -> cb.between(root.get("createdAt"), startDate, now);
+        return approximatePagination.fetch(orderRepository, Order.class, "orders", inWindow, latestUpdatedFirst(pageable))
+                .map(orderMapper::toDto);
+    }
+
+    // The same order as the exactly counted listings, latest updated first and then the requested sort
+    private static Pageable latestUpdatedFirst(Pageable pageable) {
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by(Sort.Order.desc("updatedAt")).and(pageable.getSort()));
+    }
+
+    @Override
+    public CursorPage<OrderDto> scrollOrdersByUserId(Long userId, Sort.Order order, String cursor, int size) {
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new IllegalArgumentException("User not found with id " + userId);
+        }
+        Specification<Order> byUser = (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+        return KeysetPagination.fetch(orderRepository, byUser, order, CURSOR_SORTS, cursor, size)
+                .map(orderMapper::toDto);
+    }
+
+    @Override
+    public CursorPage<OrderDto> scrollAllOrders(String filter, Sort.Order order, String cursor, int size) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startDate = OrderFilter.from(filter).resolveStart(now);
+        Specification<Order> inWindow = startDate == null ? null
+                : (root, query, cb) -> cb.between(root.get("createdAt"), startDate, now);
+        return KeysetPagination.fetch(orderRepository, inWindow, order, CURSOR_SORTS, cursor, size)
+                .map(orderMapper::toDto);
+    }
+
 
     @Override
+    @Transactional
     public OrderDto updateOrderStatus(Long id, String status) {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
 
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(OrderStatus.valueOf(status.toUpperCase()));
-        return orderMapper.toDto(orderRepository.save(order));
+        Order savedOrder = orderRepository.save(order);
+
+        if (previousStatus != savedOrder.getStatus()) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                    savedOrder.getId(), savedOrder.getUser().getId(), savedOrder.getCreatedAt(), previousStatus, savedOrder.getStatus(),
+                    savedOrder.getTotalAmount(), toLines(savedOrder)));
+        }
+        return orderMapper.toDto(savedOrder);
     }
 
     @Override
+    @Transactional
     public void deleteOrder(Long id) {
         if (!orderRepository.existsById(id)) {
             throw new RuntimeException("Order not found with id: " + id);
@@ -144,6 +210,20 @@ public class OrderServiceImpl implements OrderService {
         if(orders.getPaymentStatus().equals(PaymentStatus.COMPLETED)) {
             throw new RuntimeException("Confirmed orders cannot be deleted.");
         }
+        List<OrderLine> lines = toLines(orders);
         orderRepository.deleteById(id);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                orders.getId(), orders.getUser().getId(), orders.getCreatedAt(), orders.getStatus(), null,
+                orders.getTotalAmount(), lines));
+    }
+
+    private static List<OrderLine> toLines(Order order) {
+        return order.getItems().stream()
+                .map(item -> new OrderLine(
+                        item.getProduct().getId(),
+                        item.getProduct().getCategory() != null ? item.getProduct().getCategory().getId() : null,
+                        item.getQuantity(),
+                        item.getTotalPrice()))
+                .toList();
     }
 }
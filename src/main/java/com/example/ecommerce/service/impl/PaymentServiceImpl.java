@@ -1,36 +1,53 @@
 package com.example.ecommerce.service.impl;
 
+import com.example.ecommerce.dto.CountedPage;
+import com.example.ecommerce.dto.CursorPage;
 import com.example.ecommerce.dto.LookupResponse;
 import com.example.ecommerce.dto.PaymentCallbackResponse;
 import com.example.ecommerce.dto.PaymentInitiateResponse;
+import com.example.ecommerce.entity.Category;
 import com.example.ecommerce.entity.Order;
 import com.example.ecommerce.entity.Payment;
 import com.example.ecommerce.entity.User;
+import com.example.ecommerce.enums.PaymentFilter;
 import com.example.ecommerce.enums.PaymentMethod;
 import com.example.ecommerce.enums.PaymentStatus;
+import com.example.ecommerce.event.PaymentStatusChangedEvent;
+import com.example.ecommerce.repository.ApproximatePagination;
+import com.example.ecommerce.repository.KeysetPagination;
 import com.example.ecommerce.repository.OrderRepository;
 import com.example.ecommerce.repository.PaymentRepository;
 import com.example.ecommerce.repository.UserRepository;
 import com.example.ecommerce.service.KhaltiService;
 import com.example.ecommerce.service.PaymentService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class PaymentServiceImpl implements PaymentService {
 
+    // Non-null properties the payment listing can be scrolled by, besides the ID
+    private static final Set<String> CURSOR_SORTS = Set.of("createdAt", "updatedAt", "amount");
+
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final KhaltiService khaltiService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ApproximatePagination approximatePagination;
 
     @Transactional
     @Override
@@ -58,11 +75,15 @@ public class PaymentServiceImpl implements PaymentService {
             );
 
             // Update the existing payment with new transaction details
+            PaymentStatus previousStatus = payment.getStatus();
             payment.setTransactionId(response.getPidx());
             payment.setStatus(PaymentStatus.PENDING);
             payment.setUpdatedAt(LocalDateTime.now());
 
             paymentRepository.save(payment);
+            if (previousStatus != PaymentStatus.PENDING) {
+                publishStatusChange(payment, previousStatus);
+            }
 
             return response;
         }
@@ -84,6 +105,7 @@ public class PaymentServiceImpl implements PaymentService {
                 .build();
 
         paymentRepository.save(payment);
+        publishStatusChange(payment, null);
 
         return response;
     }
@@ -95,6 +117,7 @@ public class PaymentServiceImpl implements PaymentService {
         Payment payment = paymentRepository.findByTransactionId(pidx)
                 .orElseThrow(() -> new RuntimeException("Payment not found for transaction: " + pidx));
 
+        PaymentStatus previousStatus = payment.getStatus();
         if ("Completed".equalsIgnoreCase(lookupResponse.getStatus())) {
             payment.setStatus(PaymentStatus.COMPLETED);
             payment.getOrder().setPaymentStatus(PaymentStatus.COMPLETED);
@@ -104,6 +127,9 @@ public class PaymentServiceImpl implements PaymentService {
         }
 
         paymentRepository.save(payment);
+        if (previousStatus != payment.getStatus()) {
+            publishStatusChange(payment, previousStatus);
+        }
 
         return lookupResponse;
     }
@@ -122,26 +148,7 @@ public class PaymentServiceImpl implements PaymentService {
 
     @Override
     public Page<Payment> getAllPayments(String filter, Pageable pageable) {
-        LocalDateTime start = null;
-        LocalDateTime now = LocalDateTime.now();
-
-        switch (filter != null ? filter.toLowerCase() : "") {
-            case "today":
-                start = now.withHour(0).withMinute(0).withSecond(0).withNano(0);
-                break;
-            case "lastweek":
-                start = now.minusWeeks(1);
-                break;
-            case "15days":
-                start = now.minusDays(15);
-                break;
-            case "lastmonth":
-                start = now.minusMonths(1);
-                break;
-            case "lastyear":
-                start = now.minusYears(1);
-                break;
-        }
+        LocalDateTime start = PaymentFilter.from(filter).resolveStart(LocalDateTime.now());
 
         if (start != null) {
             return paymentRepository.findAllByCreatedAtAfter(start, pageable);
@@ -150,6 +157,22 @@ public class PaymentServiceImpl implements PaymentService {
         }
     }
 
+    @Override
+    public CountedPage<Payment> getAllPaymentsApproximate(String filter, Pageable pageable) {
+        LocalDateTime start = PaymentFilter.from(filter).resolveStart(LocalDateTime.now());
+        Specification<Payment> since = start == null ? null
+                : (root, query, cb) -> cb.greaterThan(root.get("createdAt"), start);
+        return approximatePagination.fetch(paymentRepository, Payment.class, "payments", since, pageable);
+    }
+
+    @Override
+    public CursorPage<Payment> scrollAllPayments(String filter, Sort.Order order, String cursor, int size) {
+        LocalDateTime start = PaymentFilter.from(filter).resolveStart(LocalDateTime.now());
+        Specification<Payment> since = start == null ? null
+                : (root, query, cb) -> cb.greaterThan(root.get("createdAt"), start);
+        return KeysetPagination.fetch(paymentRepository, since, order, CURSOR_SORTS, cursor, size);
+    }
+
     @Override
     public Page<Payment> getUserPayments(Long userId, String filter, Pageable pageable) {
         User user = userRepository.findById(userId)
@@ -185,4 +208,22 @@ public class PaymentServiceImpl implements PaymentService {
             return paymentRepository.findByOrderUser(user, pageable);
         }
     }
+
+    private void publishStatusChange(Payment payment, PaymentStatus previousStatus) {
+        eventPublisher.publishEvent(new PaymentStatusChangedEvent(
+                payment.getId(),
+                payment.getOrder().getId(),
+                payment.getOrder().getUser().getId(),
+                payment.getMethod(),
+                previousStatus,
+                payment.getStatus(),
+                payment.getAmount(),
+                payment.getCreatedAt(),
+                payment.getOrder().getItems().stream()
+                        .map(item -> item.getProduct().getCategory())
+                        .filter(Objects::nonNull)
+                        .map(Category::getId)
+                        .distinct()
+                        .toList()));
+    }
 }
@@ -1,15 +1,33 @@
 package com.example.ecommerce.service.impl;
 
+import com.example.ecommerce.cache.ProductCache;
+import com.example.ecommerce.dto.CursorPage;
 import com.example.ecommerce.dto.ProductDto;
+import com.example.ecommerce.dto.ProductSearchCriteria;
+import com.example.ecommerce.dto.ProductSearchResultDto;
+import com.example.ecommerce.dto.ProductStatsDto;
+import com.example.ecommerce.dto.SuggestionDto;
 import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.entity.ProductStats;
+import com.example.ecommerce.enums.ProductSearchMode;
+import com.example.ecommerce.event.ProductChangedEvent;
 import com.example.ecommerce.mapper.ProductMapper;
+import com.example.ecommerce.repository.KeysetPagination;
 import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.repository.ProductStatsRepository;
+import com.example.ecommerce.search.ProductSearchIndex;
+import com.example.ecommerce.search.ProductSuggester;
 import com.example.ecommerce.service.FileUploadService;
 import com.example.ecommerce.service.ProductService;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -17,8 +35,13 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -26,9 +49,24 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
+    // Sort properties served from product_stats, never sold products rank as zero
+    private static final Map<String, String> STATS_SORTS = Map.of(
+            "unitsSold", "COALESCE(s.unitsSold, 0)",
+            "revenue", "COALESCE(s.revenue, 0)",
+            "orderCount", "COALESCE(s.orderCount, 0)",
+            "lastSoldAt", "s.lastSoldAt");
+
+    // Non-null properties the catalog can be scrolled by, besides the ID
+    private static final Set<String> CURSOR_SORTS = Set.of("name", "price", "stockQuantity", "createdAt", "updatedAt");
+
     private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ProductStatsRepository productStatsRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggester productSuggester;
     private final ProductMapper productMapper;
     private final FileUploadService fileUploadService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     @Override
@@ -48,15 +86,19 @@ public class ProductServiceImpl implements ProductService {
         }
 
         Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getId(), null, saved.getActive()));
         return productMapper.toDto(saved);
     }
 
 
     @Override
-    public ProductDto getProductById(Long id) {
-        Product product = productRepository.findById(id)
+    public ProductDto getProductById(Long id, boolean includeStats) {
+        ProductDto dto = productCache.get(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
-        return productMapper.toDto(product);
+        if (includeStats) {
+            attachStats(List.of(dto));
+        }
+        return dto;
     }
 
     @Override
@@ -72,30 +114,175 @@ public class ProductServiceImpl implements ProductService {
                                            Integer maxStock,
                                            Boolean active,
                                            Long categoryId,
+                                           ProductSearchMode mode,
+                                           boolean includeStats,
                                            Pageable pageable) {
 
-        if ((keyword == null || keyword.isEmpty())
-                && minPrice == null
-                && maxPrice == null
-                && minStock == null
-                && maxStock == null
-                && active == null
-                && categoryId == null) {
-            return getAllProducts(pageable); // fallback to all products
+        ProductSearchCriteria criteria = ProductSearchCriteria.builder()
+                .keyword(keyword)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minStock(minStock)
+                .maxStock(maxStock)
+                .active(active)
+                .categoryId(categoryId)
+                .build();
+        return search(criteria, mode, includeStats, pageable, false).getProducts();
+    }
+
+    @Override
+    public ProductSearchResultDto searchProductsWithFacets(ProductSearchCriteria criteria,
+                                                           ProductSearchMode mode,
+                                                           boolean includeStats,
+                                                           Pageable pageable) {
+        return search(criteria, mode, includeStats, pageable, true);
+    }
+
+    // Facets are only counted when the in-memory index serves the search
+    private ProductSearchResultDto search(ProductSearchCriteria criteria,
+                                          ProductSearchMode mode,
+                                          boolean includeStats,
+                                          Pageable pageable,
+                                          boolean withFacets) {
+        ProductSearchResultDto result;
+        if (mode == ProductSearchMode.KEYWORD && productSearchIndex.isReady()
+                && productSearchIndex.canSort(pageable.getSort())) {
+            result = withFacets ? productSearchIndex.searchWithFacets(criteria, pageable)
+                    : new ProductSearchResultDto(productSearchIndex.search(criteria, pageable), null);
+        } else {
+            result = new ProductSearchResultDto(searchWithoutIndex(criteria, mode, pageable), null);
+        }
+
+        if (includeStats) {
+            attachStats(result.getProducts().getContent());
         }
+        return result;
+    }
+
+    private Page<ProductDto> searchWithoutIndex(ProductSearchCriteria criteria,
+                                                ProductSearchMode mode,
+                                                Pageable pageable) {
+        boolean hasKeyword = criteria.getKeyword() != null && !criteria.getKeyword().isBlank();
+        if (mode == ProductSearchMode.FUZZY && hasKeyword) {
+            return productRepository.fuzzySearch(criteria, pageable).map(productMapper::toDto);
+        } else if (mode != ProductSearchMode.CONTAINS && hasKeyword) {
+            return productRepository.fullTextSearch(criteria, pageable).map(productMapper::toDto);
+        }
+        return searchWithQuery(criteria, pageable);
+    }
+
+    @Override
+    public CursorPage<ProductDto> scrollProducts(ProductSearchCriteria criteria,
+                                                 Sort.Order order,
+                                                 String cursor,
+                                                 int size,
+                                                 boolean includeStats) {
+        CursorPage<ProductDto> page = KeysetPagination.fetch(productRepository, matching(criteria), order,
+                CURSOR_SORTS, cursor, size).map(productMapper::toDto);
+        if (includeStats) {
+            attachStats(page.getContent());
+        }
+        return page;
+    }
+
+    // Same conditions as the JPQL search, only the ones that are set
+    private static Specification<Product> matching(ProductSearchCriteria criteria) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (criteria.getKeyword() != null && !criteria.getKeyword().isBlank()) {
+                String pattern = "%" + criteria.getKeyword().toLowerCase(Locale.ROOT) + "%";
+                predicates.add(cb.or(cb.like(cb.lower(root.get("name")), pattern),
+                        cb.like(cb.lower(root.get("description")), pattern)));
+            }
+            if (criteria.getMinPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), criteria.getMinPrice()));
+            }
+            if (criteria.getMaxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), criteria.getMaxPrice()));
+            }
+            if (criteria.getMinStock() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("stockQuantity"), criteria.getMinStock()));
+            }
+            if (criteria.getMaxStock() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("stockQuantity"), criteria.getMaxStock()));
+            }
+            if (criteria.getActive() != null) {
+                predicates.add(cb.equal(root.get("active"), criteria.getActive()));
+            }
+            if (criteria.getCategoryId() != null) {
+                predicates.add(cb.equal(root.get("category").get("id"), criteria.getCategoryId()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
 
+    // The JPQL search, or a plain page of all products when nothing is filtered
+    private Page<ProductDto> searchWithQuery(ProductSearchCriteria criteria, Pageable pageable) {
+        Pageable sorted = withDefaultSort(pageable);
+        Pageable statsSorted = withStatsSort(sorted);
+        if (statsSorted == sorted
+                && (criteria.getKeyword() == null || criteria.getKeyword().isEmpty())
+                && criteria.getMinPrice() == null
+                && criteria.getMaxPrice() == null
+                && criteria.getMinStock() == null
+                && criteria.getMaxStock() == null
+                && criteria.getActive() == null
+                && criteria.getCategoryId() == null) {
+            return getAllProducts(sorted); // fallback to all products
+        }
         return productRepository.searchProducts(
-                keyword,
-                minPrice,
-                maxPrice,
-                minStock,
-                maxStock,
-                active,
-                categoryId,
-                pageable
+                criteria.getKeyword(),
+                criteria.getMinPrice(),
+                criteria.getMaxPrice(),
+                criteria.getMinStock(),
+                criteria.getMaxStock(),
+                criteria.getActive(),
+                criteria.getCategoryId(),
+                statsSorted
         ).map(productMapper::toDto);
     }
 
+    // Relevance only exists for full-text searches, anything else defaults to the latest updated first
+    private static Pageable withDefaultSort(Pageable pageable) {
+        Sort sort = Sort.by(pageable.getSort().stream()
+                .filter(order -> !order.getProperty().equals("relevance"))
+                .toList());
+        if (sort.equals(pageable.getSort()) && sort.isSorted()) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                sort.isSorted() ? sort : Sort.by("updatedAt").descending());
+    }
+
+    // Same pageable when no sort property is a stat, otherwise one sorting on the joined stats
+    private static Pageable withStatsSort(Pageable pageable) {
+        if (pageable.getSort().stream().noneMatch(order -> STATS_SORTS.containsKey(order.getProperty()))) {
+            return pageable;
+        }
+        Sort sort = Sort.unsorted();
+        for (Sort.Order order : pageable.getSort()) {
+            String expression = STATS_SORTS.get(order.getProperty());
+            sort = sort.and(expression != null
+                    ? JpaSort.unsafe(order.getDirection(), expression)
+                    : Sort.by(order));
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+    }
+
+    // One primary key lookup for the whole page
+    private void attachStats(List<ProductDto> products) {
+        List<Long> ids = products.stream().map(ProductDto::getId).toList();
+        Map<Long, ProductStats> statsById = productStatsRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(ProductStats::getProductId, Function.identity()));
+        for (ProductDto product : products) {
+            ProductStats stats = statsById.get(product.getId());
+            product.setStats(stats == null
+                    ? new ProductStatsDto(0L, BigDecimal.ZERO, 0L, null)
+                    : new ProductStatsDto(stats.getUnitsSold(), stats.getRevenue(), stats.getOrderCount(),
+                            stats.getLastSoldAt()));
+        }
+    }
+
 
     @Transactional
     @Override
@@ -104,6 +291,8 @@ public class ProductServiceImpl implements ProductService {
         Product existing = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
 
+        Boolean previousActive = existing.getActive();
+
         // Update fields only if provided
         if (dto.getName() != null) existing.setName(dto.getName());
         if (dto.getDescription() != null) existing.setDescription(dto.getDescription());
@@ -130,33 +319,41 @@ public class ProductServiceImpl implements ProductService {
         // Update timestamp
         existing.setUpdatedAt(LocalDateTime.now());
 
-        return productMapper.toDto(productRepository.save(existing));
+        Product saved = productRepository.save(existing);
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getId(), previousActive, saved.getActive()));
+        return productMapper.toDto(saved);
     }
 
     @Override
     public void deleteProduct(Long id) {
-        if (!productRepository.existsById(id)) {
-            throw new RuntimeException("Product not found with id: " + id);
-        }
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, product.getActive(), null));
     }
 
     @Override
     public List<ProductDto> getRelatedProducts(Long productId, int limit) {
         // Get the product to ensure it exists
-        Product product = productRepository.findById(productId)
+        ProductDto product = productCache.get(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
 
         // If product has no category, return empty list
-        if (product.getCategory() == null) {
+        if (product.getCategoryId() == null) {
             return List.of();
         }
 
-        Pageable pageable = PageRequest.of(0, limit);
-        Page<Product> relatedProducts = productRepository.findRelatedProductsByProductId(productId, pageable);
-
-        return relatedProducts.getContent().stream()
-                .map(productMapper::toDto)
+        // Only the IDs are queried, the products themselves mostly come from the cache
+        List<Long> ids = productRepository.findRelatedProductIds(productId, PageRequest.of(0, limit));
+        Map<Long, ProductDto> products = productCache.getAll(ids);
+        return ids.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
+
+    @Override
+    public List<SuggestionDto> suggest(String query, int limit) {
+        return productSuggester.suggest(query, limit);
+    }
 }
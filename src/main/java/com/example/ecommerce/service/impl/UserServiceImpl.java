@@ -4,7 +4,11 @@ import com.example.ecommerce.dto.UpdateUserDto;
 import com.example.ecommerce.entity.User;
 import com.example.ecommerce.dto.AuthRequest;
 import com.example.ecommerce.dto.AuthResponse;
+import com.example.ecommerce.enums.CustomerSegment;
+import com.example.ecommerce.enums.Gender;
 import com.example.ecommerce.dto.UserDto;
+import com.example.ecommerce.event.UserChangedEvent;
+import com.example.ecommerce.event.UserLoggedInEvent;
 import com.example.ecommerce.mapper.UserMapper;
 import com.example.ecommerce.exceptions.ResourceNotFoundException;
 import com.example.ecommerce.repository.UserRepository;
@@ -13,6 +17,7 @@ import com.example.ecommerce.security.JwtUtil;
 import com.example.ecommerce.service.FileUploadService;
 import com.example.ecommerce.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -37,6 +42,7 @@ public class UserServiceImpl implements UserService {
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
     private final FileUploadService fileUploadService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public UserDto createUser(UserDto dto, String rawPassword) {
@@ -54,6 +60,8 @@ public class UserServiceImpl implements UserService {
         user.setUpdatedAt(LocalDateTime.now());
 
         User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(
+                saved.getId(), null, null, saved.getGender(), saved.isActive()));
         return userMapper.toDto(saved);
     }
 
@@ -73,8 +81,14 @@ public class UserServiceImpl implements UserService {
                         "User", "username/email", request.getUsernameOrEmail()
                 ));
 
+        boolean wasActive = user.isActive();
         user.setActive(true);
         userRepository.save(user);
+        if (!wasActive) {
+            eventPublisher.publishEvent(new UserChangedEvent(
+                    user.getId(), user.getGender(), false, user.getGender(), true));
+        }
+        eventPublisher.publishEvent(new UserLoggedInEvent(user.getId(), LocalDateTime.now()));
 
         // Generate JWT token
         String token = jwtUtil.generateToken(new CustomUserDetails(
@@ -113,12 +127,19 @@ public class UserServiceImpl implements UserService {
                 .map(userMapper::toDto);
     }
 
+    @Override
+    public Page<UserDto> getUsersBySegment(CustomerSegment segment, Pageable pageable) {
+        return userRepository.findBySegment(segment, pageable).map(userMapper::toDto);
+    }
+
 
     @Override
     public UpdateUserDto updateUser(Long id, UpdateUserDto dto) {
         User existing = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
 
+        Gender previousGender = existing.getGender();
+
         // Update fields
         existing.setFirstName(dto.getFirstName());
         existing.setMiddleName(dto.getMiddleName());
@@ -128,7 +149,12 @@ public class UserServiceImpl implements UserService {
         existing.setCountry(dto.getCountry());
         existing.setUpdatedAt(LocalDateTime.now());
 
-        return userMapper.toUpdateUserDto(userRepository.save(existing));
+        User saved = userRepository.save(existing);
+        if (previousGender != saved.getGender()) {
+            eventPublisher.publishEvent(new UserChangedEvent(
+                    saved.getId(), previousGender, saved.isActive(), saved.getGender(), saved.isActive()));
+        }
+        return userMapper.toUpdateUserDto(saved);
     }
 
     @Override
@@ -155,10 +181,11 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new RuntimeException("User not found with id: " + id);
-        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(new UserChangedEvent(
+                id, user.getGender(), user.isActive(), null, null));
     }
 
     @Override
@@ -190,6 +217,8 @@ public class UserServiceImpl implements UserService {
         user.setActive(!user.isActive());
 
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(
+                user.getId(), user.getGender(), !user.isActive(), user.getGender(), user.isActive()));
     }
 
 
@@ -0,0 +1,43 @@
+-- Runs after Hibernate has updated the schema, every statement must be safe to repeat
+-- Statements end with ^; so that the PL/pgSQL blocks below can contain semicolons
+
+-- Full-text search vector of products, recomputed by PostgreSQL on every insert and update
+ALTER TABLE products ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(description, '')), 'B')
+    ) STORED^;
+
+CREATE INDEX IF NOT EXISTS idx_products_search_vector ON products USING gin (search_vector)^;
+
+-- Trigram indexes for typo-tolerant search. Creating the extension needs the CREATE privilege
+-- on the database, when the application user lacks it a DBA runs CREATE EXTENSION pg_trgm once
+-- and the indexes are created on the next start. Until then fuzzy search is unavailable.
+DO $$
+BEGIN
+    CREATE EXTENSION IF NOT EXISTS pg_trgm;
+EXCEPTION
+    WHEN insufficient_privilege THEN
+        RAISE NOTICE 'pg_trgm is not installed and cannot be created by this user, skipping trigram indexes';
+END
+$$^;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN
+        CREATE INDEX IF NOT EXISTS idx_products_name_trgm ON products USING gin (lower(name) gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_categories_name_trgm ON categories USING gin (lower(name) gin_trgm_ops);
+    END IF;
+END
+$$^;
+
+CREATE INDEX IF NOT EXISTS idx_products_category_id ON products (category_id)^;
+
+-- Keyset pagination seeks on (updated_at, id), the default sort of the scrolled listings
+CREATE INDEX IF NOT EXISTS idx_products_updated_at_id ON products (updated_at, id)^;
+
+CREATE INDEX IF NOT EXISTS idx_orders_updated_at_id ON orders (updated_at, id)^;
+
+CREATE INDEX IF NOT EXISTS idx_orders_user_updated_at_id ON orders (user_id, updated_at, id)^;
+
+CREATE INDEX IF NOT EXISTS idx_payments_updated_at_id ON payments (updated_at, id)^;
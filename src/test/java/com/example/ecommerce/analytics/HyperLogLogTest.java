@@ -0,0 +1,101 @@
+package com.example.ecommerce.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    // The inputs are fixed, so the documented standard error can be asserted as is
+    private static final double TOLERANCE = HyperLogLog.RELATIVE_ERROR;
+
+    @Test
+    void estimatesAThousandDistinctValues() {
+        assertWithinError(1_000);
+    }
+
+    @Test
+    void estimatesAHundredThousandDistinctValues() {
+        assertWithinError(100_000);
+    }
+
+    @Test
+    void estimatesAMillionDistinctValues() {
+        assertWithinError(1_000_000);
+    }
+
+    @Test
+    void ignoresRepeatedValues() {
+        HyperLogLog sketch = sketchOf(0, 10_000);
+        for (long value = 0; value < 10_000; value++) {
+            assertFalse(sketch.add(value));
+        }
+        assertEquals(sketchOf(0, 10_000).estimate(), sketch.estimate());
+    }
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertEquals(0, new HyperLogLog().estimate());
+    }
+
+    @Test
+    void mergeGivesTheSketchOfTheUnion() {
+        HyperLogLog merged = sketchOf(0, 60_000);
+        merged.merge(sketchOf(40_000, 100_000));
+
+        assertArrayEquals(sketchOf(0, 100_000).toBytes(), merged.toBytes());
+        assertWithinError(100_000, merged.estimate());
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        HyperLogLog sketch = sketchOf(0, 50_000);
+
+        HyperLogLog restored = HyperLogLog.fromBytes(sketch.toBytes());
+
+        assertArrayEquals(sketch.toBytes(), restored.toBytes());
+        assertEquals(sketch.estimate(), restored.estimate());
+    }
+
+    @Test
+    void restoredSketchDoesNotShareTheGivenBytes() {
+        byte[] bytes = sketchOf(0, 1_000).toBytes();
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+        long estimate = restored.estimate();
+
+        Arrays.fill(bytes, (byte) 0);
+
+        assertEquals(estimate, restored.estimate());
+    }
+
+    @Test
+    void rejectsBytesOfTheWrongLength() {
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[HyperLogLog.REGISTERS - 1]));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(null));
+    }
+
+    private static void assertWithinError(int distinct) {
+        assertWithinError(distinct, sketchOf(0, distinct).estimate());
+    }
+
+    private static void assertWithinError(long distinct, long estimate) {
+        double error = Math.abs(estimate - distinct) / (double) distinct;
+        assertTrue(error <= TOLERANCE,
+                "estimate " + estimate + " of " + distinct + " is off by " + error + ", more than " + TOLERANCE);
+    }
+
+    // Values from inclusive to exclusive
+    private static HyperLogLog sketchOf(long from, long to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long value = from; value < to; value++) {
+            sketch.add(value);
+        }
+        return sketch;
+    }
+}
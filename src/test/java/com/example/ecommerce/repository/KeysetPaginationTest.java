@@ -0,0 +1,259 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.dto.CursorPage;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor.SpecificationFluentQuery;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetPaginationTest {
+
+    private static final Set<String> SORTABLE = Set.of("rank");
+
+    // Ranks repeat every four rows, so most pages end in the middle of a tie
+    private final List<Row> rows = List.of(
+            new Row(7L, 3), new Row(2L, 2), new Row(11L, 3), new Row(5L, 1), new Row(1L, 1),
+            new Row(9L, 1), new Row(4L, 0), new Row(12L, 0), new Row(3L, 3), new Row(8L, 0),
+            new Row(10L, 2), new Row(6L, 2), new Row(13L, 1));
+
+    private final JpaSpecificationExecutor<Row> repository = repository(rows);
+
+    @Test
+    void pagesToTheEndAscendingThroughTies() {
+        Comparator<Row> expected = Comparator.comparing(Row::getRank).thenComparing(Row::getId);
+        assertPagesInOrder(Sort.Order.asc("rank"), expected);
+    }
+
+    @Test
+    void pagesToTheEndDescendingThroughTies() {
+        Comparator<Row> expected = Comparator.comparing(Row::getRank).thenComparing(Row::getId).reversed();
+        assertPagesInOrder(Sort.Order.desc("rank"), expected);
+    }
+
+    @Test
+    void pagesToTheEndById() {
+        assertPagesInOrder(Sort.Order.asc("id"), Comparator.comparing(Row::getId));
+    }
+
+    @Test
+    void returnsASinglePageWithoutCursorWhenEverythingFits() {
+        CursorPage<Row> page = KeysetPagination.fetch(repository, null, Sort.Order.asc("rank"), SORTABLE, null,
+                rows.size());
+
+        assertEquals(rows.size(), page.getContent().size());
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void rejectsACursorThatIsNotBase64() {
+        assertThrows(IllegalArgumentException.class, () -> fetch(Sort.Order.asc("rank"), "not a cursor!"));
+    }
+
+    @Test
+    void rejectsACursorWithMissingParts() {
+        assertThrows(IllegalArgumentException.class, () -> fetch(Sort.Order.asc("rank"), cursor("rank\nASC\n3")));
+    }
+
+    @Test
+    void rejectsACursorWithANonNumericId() {
+        assertThrows(IllegalArgumentException.class, () -> fetch(Sort.Order.asc("rank"), cursor("rank\nASC\nx\n1")));
+    }
+
+    @Test
+    void rejectsACursorOfAnotherSort() {
+        String cursor = fetch(Sort.Order.asc("rank"), null).getNextCursor();
+
+        assertThrows(IllegalArgumentException.class, () -> fetch(Sort.Order.desc("rank"), cursor));
+        assertThrows(IllegalArgumentException.class, () -> fetch(Sort.Order.asc("id"), cursor));
+    }
+
+    @Test
+    void rejectsAnUnsortableProperty() {
+        assertThrows(IllegalArgumentException.class, () -> fetch(Sort.Order.asc("name"), null));
+    }
+
+    @Test
+    void rejectsASizeOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () ->
+                KeysetPagination.fetch(repository, null, Sort.Order.asc("rank"), SORTABLE, null, 0));
+        assertThrows(IllegalArgumentException.class, () ->
+                KeysetPagination.fetch(repository, null, Sort.Order.asc("rank"), SORTABLE, null,
+                        KeysetPagination.MAX_SIZE + 1));
+    }
+
+    private void assertPagesInOrder(Sort.Order order, Comparator<Row> expected) {
+        List<Long> seen = new ArrayList<>();
+        Set<Long> unique = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<Row> page = fetch(order, cursor);
+            assertTrue(page.getContent().size() <= 3);
+            for (Row row : page.getContent()) {
+                assertTrue(unique.add(row.getId()), "row " + row.getId() + " returned twice");
+                seen.add(row.getId());
+            }
+            assertEquals(page.isHasNext(), page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null && pages <= rows.size());
+
+        List<Long> all = rows.stream().sorted(expected).map(Row::getId).toList();
+        assertEquals(all, seen);
+    }
+
+    private CursorPage<Row> fetch(Sort.Order order, String cursor) {
+        return KeysetPagination.fetch(repository, null, order, SORTABLE, cursor, 3);
+    }
+
+    private static String cursor(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Evaluates specifications against a list, supporting the criteria KeysetPagination builds
+    @SuppressWarnings("unchecked")
+    private static JpaSpecificationExecutor<Row> repository(List<Row> rows) {
+        return proxy(JpaSpecificationExecutor.class, (proxy, method, args) -> {
+            if (!method.getName().equals("findBy")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            Specification<Row> specification = (Specification<Row>) args[0];
+            Condition condition = condition(specification.toPredicate(root(), null, criteriaBuilder()));
+            List<Row> matching = rows.stream().filter(condition::test).toList();
+            return ((Function<SpecificationFluentQuery<Row>, ?>) args[1]).apply(query(matching, Sort.unsorted(), -1));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SpecificationFluentQuery<Row> query(List<Row> matching, Sort sort, int limit) {
+        return proxy(SpecificationFluentQuery.class, (proxy, method, args) -> switch (method.getName()) {
+            case "sortBy" -> query(matching, (Sort) args[0], limit);
+            case "limit" -> query(matching, sort, (Integer) args[0]);
+            case "all" -> matching.stream()
+                    .sorted(comparator(sort))
+                    .limit(limit < 0 ? Long.MAX_VALUE : limit)
+                    .toList();
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Row> comparator(Sort sort) {
+        Comparator<Row> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Row> next = Comparator.comparing(row -> (Comparable) row.get(order.getProperty()));
+            comparator = comparator.thenComparing(order.isAscending() ? next : next.reversed());
+        }
+        return comparator;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Root<Row> root() {
+        return proxy(Root.class, (proxy, method, args) -> {
+            if (!method.getName().equals("get")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            String property = (String) args[0];
+            return proxy(Path.class, new PathHandler(property, property.equals("id") ? Long.class : Integer.class));
+        });
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static CriteriaBuilder criteriaBuilder() {
+        return proxy(CriteriaBuilder.class, (proxy, method, args) -> {
+            Condition condition = switch (method.getName()) {
+                case "greaterThan" -> row -> ((Comparable) value(row, args[0])).compareTo(args[1]) > 0;
+                case "lessThan" -> row -> ((Comparable) value(row, args[0])).compareTo(args[1]) < 0;
+                case "equal" -> row -> value(row, args[0]).equals(args[1]);
+                case "and" -> row -> condition(args[0]).test(row) && condition(args[1]).test(row);
+                case "or" -> row -> condition(args[0]).test(row) || condition(args[1]).test(row);
+                default -> throw new UnsupportedOperationException(method.getName());
+            };
+            return proxy(Predicate.class, condition);
+        });
+    }
+
+    private static Object value(Row row, Object path) {
+        return row.get(((PathHandler) Proxy.getInvocationHandler(path)).property());
+    }
+
+    private static Condition condition(Object predicate) {
+        return predicate == null ? row -> true : (Condition) Proxy.getInvocationHandler(predicate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(KeysetPaginationTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private interface Condition extends InvocationHandler {
+
+        boolean test(Row row);
+
+        @Override
+        default Object invoke(Object proxy, Method method, Object[] args) {
+            throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private record PathHandler(String property, Class<?> javaType) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("getJavaType")) {
+                return javaType;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    public static class Row {
+
+        private final Long id;
+        private final Integer rank;
+
+        Row(Long id, Integer rank) {
+            this.id = id;
+            this.rank = rank;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public Integer getRank() {
+            return rank;
+        }
+
+        Object get(String property) {
+            if (property.equals("id")) {
+                return id;
+            }
+            return rank;
+        }
+    }
+}
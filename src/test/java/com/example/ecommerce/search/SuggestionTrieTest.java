@@ -0,0 +1,109 @@
+package com.example.ecommerce.search;
+
+import com.example.ecommerce.enums.SuggestionType;
+import com.example.ecommerce.search.SuggestionTrie.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestionTrieTest {
+
+    private final SuggestionTrie trie = new SuggestionTrie(5);
+
+    @Test
+    void completesKeysSharingAPrefix() {
+        Suggestion apple = product(1L, "apple", 10);
+        Suggestion apply = product(2L, "apply", 30);
+        Suggestion apricot = product(3L, "apricot", 20);
+        // "apply" splits the "apple" edge after "appl", "apricot" splits it again after "ap"
+        trie.insert("apple", apple);
+        trie.insert("apply", apply);
+        trie.insert("apricot", apricot);
+
+        assertEquals(List.of(apply, apricot, apple), trie.complete("a", 5));
+        assertEquals(List.of(apply, apricot, apple), trie.complete("ap", 5));
+        assertEquals(List.of(apply, apple), trie.complete("appl", 5));
+        assertEquals(List.of(apple), trie.complete("apple", 5));
+        assertEquals(List.of(apricot), trie.complete("apr", 5));
+        assertEquals(List.of(apply), trie.complete("a", 1));
+    }
+
+    @Test
+    void completesAPrefixEndingInsideAnEdge() {
+        Suggestion banana = product(1L, "banana", 10);
+        trie.insert("banana", banana);
+
+        assertEquals(List.of(banana), trie.complete("b", 5));
+        assertEquals(List.of(banana), trie.complete("ban", 5));
+        assertEquals(List.of(banana), trie.complete("banana", 5));
+        assertTrue(trie.complete("bax", 5).isEmpty());
+        assertTrue(trie.complete("bananas", 5).isEmpty());
+        assertTrue(trie.complete("c", 5).isEmpty());
+    }
+
+    @Test
+    void completesAPrefixEndingInsideAnEdgeBelowASplit() {
+        Suggestion apple = product(1L, "apple", 10);
+        Suggestion applesauce = product(2L, "applesauce", 5);
+        trie.insert("apple", apple);
+        trie.insert("applesauce", applesauce);
+
+        assertEquals(List.of(apple, applesauce), trie.complete("apple", 5));
+        assertEquals(List.of(applesauce), trie.complete("apples", 5));
+        assertTrue(trie.complete("applesx", 5).isEmpty());
+    }
+
+    @Test
+    void removesTheLastKeyUnderASplitNode() {
+        Suggestion apple = product(1L, "apple", 10);
+        Suggestion apply = product(2L, "apply", 30);
+        trie.insert("apple", apple);
+        trie.insert("apply", apply);
+
+        trie.remove("apply", apply.key());
+        assertEquals(List.of(apple), trie.complete("appl", 5));
+        assertTrue(trie.complete("apply", 5).isEmpty());
+
+        trie.remove("apple", apple.key());
+        assertTrue(trie.complete("a", 5).isEmpty());
+        assertTrue(trie.complete("", 5).isEmpty());
+
+        // The emptied branch was dropped, a new key under it starts over cleanly
+        Suggestion apricot = product(3L, "apricot", 20);
+        trie.insert("apricot", apricot);
+        assertEquals(List.of(apricot), trie.complete("ap", 5));
+        assertTrue(trie.complete("appl", 5).isEmpty());
+    }
+
+    @Test
+    void keepsSuggestionsOfDifferentTypesUnderTheSameKey() {
+        Suggestion product = product(1L, "shoes", 10);
+        Suggestion category = new Suggestion(SuggestionType.CATEGORY, 1L, "Shoes", 50);
+        trie.insert("shoes", product);
+        trie.insert("shoes", category);
+
+        assertEquals(List.of(category, product), trie.complete("sh", 5));
+
+        trie.remove("shoes", category.key());
+        assertEquals(List.of(product), trie.complete("sh", 5));
+    }
+
+    @Test
+    void ignoresRemovingAnUnknownKey() {
+        Suggestion apple = product(1L, "apple", 10);
+        trie.insert("apple", apple);
+
+        trie.remove("app", apple.key());
+        trie.remove("apples", apple.key());
+        trie.remove("apple", new Suggestion.Key(SuggestionType.PRODUCT, 2L));
+
+        assertEquals(List.of(apple), trie.complete("app", 5));
+    }
+
+    private static Suggestion product(Long id, String text, long weight) {
+        return new Suggestion(SuggestionType.PRODUCT, id, text, weight);
+    }
+}